@@ -0,0 +1,117 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import ru.javacode.springmvcjsonview.compression.CompressedBodyCache;
+import ru.javacode.springmvcjsonview.compression.ContentCoding;
+import ru.javacode.springmvcjsonview.config.CompressionProperties;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
+import ru.javacode.springmvcjsonview.view.Views;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена сжатия против сэкономленных байтов: время gzip/zstd на разных уровнях для JSON списка заказов
+ * ({@code Views.OrderSummary}) и пользователя с заказами ({@code Views.UserDetails}), а также попадание
+ * в {@link CompressedBodyCache}. Размеры до и после сжатия попадают в результат вторичными метриками
+ * {@link #compressedSize(CompressedSize)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    @Param({"GZIP:1", "GZIP:6", "GZIP:9", "ZSTD:1", "ZSTD:3", "ZSTD:9"})
+    private String codec;
+
+    private ContentCoding coding;
+    private int level;
+    private byte[] orders;
+    private byte[] user;
+    private int compressedOrdersLength;
+    private int compressedUserLength;
+    private CompressedBodyCache cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] parts = codec.split(":");
+        coding = ContentCoding.valueOf(parts[0]);
+        level = Integer.parseInt(parts[1]);
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ViewCompiler viewCompiler = new ViewCompiler(objectMapper, Views.class, Order.class, User.class);
+        orders = viewCompiler.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Order.class),
+                Views.OrderSummary.class).writeValueAsBytes(Fixtures.orders(Fixtures.user(2, 0), size));
+        user = viewCompiler.writerFor(User.class, Views.UserDetails.class)
+                .writeValueAsBytes(Fixtures.user(1, size));
+
+        cache = new CompressedBodyCache(new CompressionProperties(true, DataSize.ofKilobytes(1),
+                new CompressionProperties.Levels(6, 3), Map.of(), DataSize.ofMegabytes(64)), new SimpleMeterRegistry());
+        cache.encode("/api/v1/users/1", "\"0.0\"", coding, level, user);
+
+        compressedOrdersLength = coding.encode(orders, level).length;
+        compressedUserLength = coding.encode(user, level).length;
+    }
+
+    // одна итерация без прогрева: EVENTS-счётчики за итерации складываются
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void compressedSize(CompressedSize compressedSize) {
+        compressedSize.ordersBytes = orders.length;
+        compressedSize.ordersCompressedBytes = compressedOrdersLength;
+        compressedSize.userBytes = user.length;
+        compressedSize.userCompressedBytes = compressedUserLength;
+    }
+
+    @Benchmark
+    public byte[] encodeOrders() {
+        return coding.encode(orders, level);
+    }
+
+    @Benchmark
+    public byte[] encodeUser() {
+        return coding.encode(user, level);
+    }
+
+    @Benchmark
+    public byte[] cachedUser() {
+        return cache.encode("/api/v1/users/1", "\"0.0\"", coding, level, user);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CompressedSize {
+
+        public long ordersBytes;
+        public long ordersCompressedBytes;
+        public long userBytes;
+        public long userCompressedBytes;
+    }
+}
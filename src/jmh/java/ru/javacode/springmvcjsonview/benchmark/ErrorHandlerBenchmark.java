@@ -0,0 +1,61 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.javacode.springmvcjsonview.error.ErrorHandler;
+import ru.javacode.springmvcjsonview.error.ErrorResponse;
+import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение тела ошибки в {@link ErrorHandler} и его сериализация: 404 и 409 — самые частые ошибки API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorHandlerBenchmark {
+
+    private ErrorHandler errorHandler;
+    private ObjectMapper objectMapper;
+    private ResourceNotFoundException notFound;
+    private DataIntegrityViolationException conflict;
+
+    @Setup
+    public void setUp() {
+        errorHandler = new ErrorHandler();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        notFound = new ResourceNotFoundException("Order with id 42 not found");
+        conflict = new DataIntegrityViolationException("could not execute statement; constraint [uk_users_email]");
+    }
+
+    @Benchmark
+    public ErrorResponse notFound() {
+        return errorHandler.handleNotFoundException(notFound);
+    }
+
+    @Benchmark
+    public ErrorResponse conflict() {
+        return errorHandler.handleConflictException(conflict);
+    }
+
+    @Benchmark
+    public byte[] notFoundBody() throws IOException {
+        return objectMapper.writeValueAsBytes(errorHandler.handleNotFoundException(notFound));
+    }
+}
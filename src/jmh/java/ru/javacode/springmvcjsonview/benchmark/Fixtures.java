@@ -0,0 +1,51 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static User user(long userId, int orderCount) {
+        User user = User.builder()
+                .userId(userId)
+                .name("user" + userId)
+                .email("user" + userId + "@example.com")
+                .password("$2a$10$abcdefghijklmnopqrstuuNqKZ0gq0Cz1pS2tYbJ8wUe9xGvXl5gO")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build();
+        user.setOrders(orders(user, orderCount));
+        return user;
+    }
+
+    static List<Order> orders(User user, int count) {
+        OrderStatus[] statuses = OrderStatus.values();
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(Order.builder()
+                    .orderId((long) i + 1)
+                    .amount(BigDecimal.valueOf(1000 + i, 2))
+                    .orderStatus(statuses[i % statuses.length])
+                    .user(user)
+                    .build());
+        }
+        return orders;
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(i + 1, 0));
+        }
+        return users;
+    }
+}
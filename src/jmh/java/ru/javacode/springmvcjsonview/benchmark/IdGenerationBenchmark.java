@@ -0,0 +1,139 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Пропускная способность вставки через Hibernate при разных генераторах id:
+ * IDENTITY (JDBC batching отключается), последовательность с шагом 1 (обращение к базе на каждую вставку),
+ * pooled с шагом 50 (прежний AUTO) и pooled-lo с шагом 50 (текущий маппинг {@code Order} и {@code User}).
+ * Вставка идёт порциями по {@link #BATCH_SIZE}, как в {@code OrderServiceImpl.createOrders}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"IDENTITY", "SEQUENCE", "POOLED", "POOLED_LO"})
+    private String strategy;
+
+    @Param({"1000"})
+    private int rows;
+
+    private SessionFactory sessionFactory;
+    private Supplier<Object> rowFactory;
+
+    @Setup
+    public void setUp() {
+        Configuration configuration = new Configuration()
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:idgen-" + strategy + ";DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(BATCH_SIZE))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        switch (strategy) {
+            case "IDENTITY" -> {
+                configuration.addAnnotatedClass(IdentityRow.class);
+                rowFactory = IdentityRow::new;
+            }
+            case "SEQUENCE" -> {
+                configuration.addAnnotatedClass(SequenceRow.class);
+                rowFactory = SequenceRow::new;
+            }
+            case "POOLED", "POOLED_LO" -> {
+                configuration.addAnnotatedClass(PooledRow.class);
+                configuration.setProperty(AvailableSettings.PREFERRED_POOLED_OPTIMIZER,
+                        strategy.equals("POOLED") ? "pooled" : "pooled-lo");
+                rowFactory = PooledRow::new;
+            }
+            default -> throw new IllegalArgumentException(strategy);
+        }
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void insert() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            for (int i = 1; i <= rows; i++) {
+                session.persist(rowFactory.get());
+                if (i % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    @Entity
+    @Table(name = "identity_rows")
+    public static class IdentityRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        public Long id;
+
+        public BigDecimal amount = BigDecimal.TEN;
+    }
+
+    @Entity
+    @Table(name = "sequence_rows")
+    public static class SequenceRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequence_rows_seq")
+        @SequenceGenerator(name = "sequence_rows_seq", allocationSize = 1)
+        public Long id;
+
+        public BigDecimal amount = BigDecimal.TEN;
+    }
+
+    @Entity
+    @Table(name = "pooled_rows")
+    public static class PooledRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_rows_seq")
+        @SequenceGenerator(name = "pooled_rows_seq", allocationSize = 50)
+        public Long id;
+
+        public BigDecimal amount = BigDecimal.TEN;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
+import ru.javacode.springmvcjsonview.view.Views;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code @JsonView}-сериализация сущностей теми же writer'ами, что и в ответах:
+ * списки заказов и пользователей в Summary-представлениях и пользователь с заказами в {@code UserDetails}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonViewSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private List<Order> orders;
+    private List<User> users;
+    private User user;
+    private ObjectWriter orderSummaryList;
+    private ObjectWriter orderDetailsList;
+    private ObjectWriter userSummaryList;
+    private ObjectWriter userDetails;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ViewCompiler viewCompiler = new ViewCompiler(objectMapper, Views.class, Order.class, User.class);
+        orders = Fixtures.orders(Fixtures.user(1, 0), size);
+        users = Fixtures.users(size);
+        user = Fixtures.user(1, size);
+        orderSummaryList = viewCompiler.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, Order.class), Views.OrderSummary.class);
+        orderDetailsList = viewCompiler.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, Order.class), Views.OrderDetails.class);
+        userSummaryList = viewCompiler.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, User.class), Views.UserSummary.class);
+        userDetails = viewCompiler.writerFor(User.class, Views.UserDetails.class);
+    }
+
+    @Benchmark
+    public byte[] orderSummaryList() throws IOException {
+        return orderSummaryList.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] orderDetailsList() throws IOException {
+        return orderDetailsList.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] userSummaryList() throws IOException {
+        return userSummaryList.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] userDetailsWithOrders() throws IOException {
+        return userDetails.writeValueAsBytes(user);
+    }
+}
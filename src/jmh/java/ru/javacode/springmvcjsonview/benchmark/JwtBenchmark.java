@@ -0,0 +1,117 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.javacode.springmvcjsonview.config.JwtProperties;
+import ru.javacode.springmvcjsonview.config.TokenCacheProperties;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.security.JWTUtils;
+import ru.javacode.springmvcjsonview.security.TokenPrincipal;
+import ru.javacode.springmvcjsonview.security.VerifiedTokenCache;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции {@link JWTUtils}, которые выполняются на логине и на каждом запросе с токеном.
+ * {@code authenticateRequestLegacy} воспроизводит прежний путь фильтра: токен прежнего формата
+ * (authorities объектами, дублирующие issuedAt/expiration) и три разбора с новым парсером на каждый.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final long EXPIRATION_TIME = 86400000;
+
+    private JWTUtils jwtUtils;
+    private VerifiedTokenCache verifiedTokenCache;
+    private User user;
+    private String token;
+
+    private SecretKey legacyKey;
+    private String legacyToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JWTUtils();
+        user = Fixtures.user(1, 0);
+        token = jwtUtils.generateToken(user);
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtils,
+                new JwtProperties(Duration.ofMinutes(15), Duration.ofHours(24), true),
+                new TokenCacheProperties(true, 10_000), new SimpleMeterRegistry());
+
+        legacyKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("roles", user.getAuthorities());
+        claims.put("issuedAt", new Date());
+        claims.put("expiration", new Date(System.currentTimeMillis() + EXPIRATION_TIME));
+        legacyToken = Jwts.builder()
+                .setClaims(claims)
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .signWith(legacyKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean authenticateRequest() {
+        TokenClaims claims = jwtUtils.verify(token);
+        return jwtUtils.isTokenValid(claims, user);
+    }
+
+    @Benchmark
+    public boolean authenticateRequestCached() {
+        TokenClaims claims = verifiedTokenCache.verify(token);
+        return jwtUtils.isTokenValid(claims, user);
+    }
+
+    @Benchmark
+    public TokenPrincipal authenticateRequestClaimsOnly() {
+        TokenClaims claims = verifiedTokenCache.verify(token);
+        return verifiedTokenCache.isRevoked(claims) ? null : TokenPrincipal.of(claims);
+    }
+
+    @Benchmark
+    public boolean authenticateRequestLegacy() {
+        String username = parseLegacy().getSubject();
+        return username.equals(user.getUsername())
+                && parseLegacy().getSubject().equals(user.getUsername())
+                && !parseLegacy().getExpiration().before(new Date());
+    }
+
+    private Claims parseLegacy() {
+        return Jwts.parserBuilder()
+                .setSigningKey(legacyKey)
+                .build()
+                .parseClaimsJws(legacyToken)
+                .getBody();
+    }
+}
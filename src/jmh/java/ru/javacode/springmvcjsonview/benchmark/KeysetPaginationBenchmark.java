@@ -0,0 +1,90 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время получения страницы заказов в зависимости от глубины: keyset ({@code order_id > ?})
+ * против OFFSET. SQL повторяет запрос {@code OrderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeysetPaginationBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int LIMIT = 50;
+
+    @Param({"0", "1000", "50000", "190000"})
+    private int depth;
+
+    private Connection connection;
+    private PreparedStatement keyset;
+    private PreparedStatement offset;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:keyset;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists orders (order_id bigint primary key, "
+                    + "order_amount numeric(38, 2) not null, order_status varchar(255) not null, user_id bigint)");
+            statement.execute("delete from orders");
+            statement.execute("insert into orders select x, x / 100.0, 'PROCESSING', 1 "
+                    + "from system_range(1, " + ROWS + ")");
+        }
+        keyset = connection.prepareStatement("select order_id, order_amount, order_status, user_id from orders "
+                + "where order_id > ? order by order_id fetch first ? rows only");
+        offset = connection.prepareStatement("select order_id, order_amount, order_status, user_id from orders "
+                + "order by order_id offset ? rows fetch first ? rows only");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void keyset(Blackhole blackhole) throws SQLException {
+        keyset.setLong(1, depth);
+        keyset.setInt(2, LIMIT);
+        consume(keyset, blackhole);
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) throws SQLException {
+        offset.setLong(1, depth);
+        offset.setInt(2, LIMIT);
+        consume(offset, blackhole);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                blackhole.consume(resultSet.getBigDecimal(2));
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.javacode.springmvcjsonview.SpringMvcJsonviewApplication;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.security.JWTUtils;
+import ru.javacode.springmvcjsonview.security.controller.AuthController;
+import ru.javacode.springmvcjsonview.security.dto.AuthRequest;
+import ru.javacode.springmvcjsonview.service.UserService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Успешный вход на поднятом приложении с H2. {@code loginLegacy} повторяет прежний путь
+ * {@code AuthController.authenticateUser}: чтение по email, второе чтение и BCrypt в
+ * {@code DaoAuthenticationProvider}, затем {@code updateUser} с перезаписью всех колонок.
+ * Время почти целиком уходит на BCrypt, поэтому разница — это запросы к базе вокруг него.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private ConfigurableApplicationContext context;
+    private AuthController authController;
+    private AuthenticationManager authenticationManager;
+    private UserRepository userRepository;
+    private UserService userService;
+    private JWTUtils jwtUtils;
+    private AuthRequest authRequest;
+
+    @Setup
+    public void setUp() {
+        // сущности других бенчмарков лежат в пакете приложения и не имеют таблиц, поэтому схема не сверяется
+        context = new SpringApplicationBuilder(SpringMvcJsonviewApplication.class).run(
+                "--server.port=0", "--server.ssl.enabled=false", "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN", "--logging.level.org.springframework.boot=WARN",
+                "--logging.level.org.hibernate.SQL=WARN", "--logging.level.org.hibernate.type.descriptor.sql=WARN");
+        authController = context.getBean(AuthController.class);
+        authenticationManager = context.getBean(AuthenticationManager.class);
+        userRepository = context.getBean(UserRepository.class);
+        userService = context.getBean(UserService.class);
+        jwtUtils = context.getBean(JWTUtils.class);
+
+        User user = userRepository.save(User.builder()
+                .name("login")
+                .email("login-benchmark@example.com")
+                .password(context.getBean(PasswordEncoder.class).encode(PASSWORD))
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        authRequest = new AuthRequest();
+        authRequest.setUsername(user.getEmail());
+        authRequest.setPassword(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> login() {
+        return authController.authenticateUser(authRequest);
+    }
+
+    @Benchmark
+    public String loginLegacy() {
+        User user = userRepository.findByEmail(authRequest.getUsername()).orElseThrow();
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword()));
+        user.setFailedAttempts(0);
+        user.setAccountNonLocked(true);
+        user.setLockTime(null);
+        userService.updateUser(user.getUserId(), user, null);
+        return jwtUtils.generateToken((UserDetails) authentication.getPrincipal());
+    }
+}
@@ -0,0 +1,80 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.CompiledViewHttpMessageConverter;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
+import ru.javacode.springmvcjsonview.view.Views;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает стандартный {@link MappingJackson2HttpMessageConverter} с
+ * {@link CompiledViewHttpMessageConverter} на списке заказов с {@code Views.OrderSummary}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewWriterBenchmark {
+
+    private static final Type ORDER_LIST = new ParameterizedTypeReference<List<Order>>() {
+    }.getType();
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private MappingJackson2HttpMessageConverter defaultConverter;
+    private MappingJackson2HttpMessageConverter compiledConverter;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        defaultConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+        compiledConverter = new CompiledViewHttpMessageConverter(
+                new ViewCompiler(objectMapper, Views.class, Order.class, User.class));
+        orders = Fixtures.orders(Fixtures.user(1, 0), size);
+    }
+
+    @Benchmark
+    public byte[] defaultConverter() throws IOException {
+        return write(defaultConverter);
+    }
+
+    @Benchmark
+    public byte[] compiledViewConverter() throws IOException {
+        return write(compiledConverter);
+    }
+
+    private byte[] write(MappingJackson2HttpMessageConverter converter) throws IOException {
+        MappingJacksonValue value = new MappingJacksonValue(orders);
+        value.setSerializationView(Views.OrderSummary.class);
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(value, ORDER_LIST, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsBytes();
+    }
+}
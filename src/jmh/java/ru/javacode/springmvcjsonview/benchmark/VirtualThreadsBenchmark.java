@@ -0,0 +1,113 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.javacode.springmvcjsonview.SpringMvcJsonviewApplication;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.security.JWTUtils;
+import ru.javacode.springmvcjsonview.security.TokenPrincipal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузка на настоящий Tomcat, когда все запросы одновременно блокируются: {@link BlockingController}
+ * засыпает на {@link #BLOCKING_MILLIS} мс, как при медленном запросе к базе. 200 клиентских потоков
+ * против 50 потоков Tomcat на платформенных потоках и без ограничения на виртуальных; p99 и пропускная
+ * способность берутся из режима {@code SampleTime} и {@code Throughput}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(200)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    static final long BLOCKING_MILLIS = 200;
+
+    @Param({"false", "true"})
+    public boolean virtual;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        // сущности других бенчмарков лежат в пакете приложения и не имеют таблиц, поэтому схема не сверяется
+        context = new SpringApplicationBuilder(SpringMvcJsonviewApplication.class).run(
+                "--server.port=0", "--server.ssl.enabled=false", "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.threads.virtual.enabled=" + virtual, "--server.tomcat.threads.max=50",
+                "--app.security.jwt.claims-only=true",
+                "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN", "--logging.level.org.springframework.boot=WARN",
+                "--logging.level.org.hibernate.SQL=WARN", "--logging.level.org.hibernate.type.descriptor.sql=WARN");
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .name("blocking")
+                .email("virtual-threads-benchmark@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/benchmark/blocking"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + context.getBean(JWTUtils.class).generateToken(user))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int blockingRequest() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.body().length();
+    }
+
+    /**
+     * Поднимается сканированием компонентов только в бенчмарках: src/jmh не входит в основную сборку.
+     */
+    @RestController
+    public static class BlockingController {
+
+        @GetMapping("/benchmark/blocking")
+        public String blocking(@AuthenticationPrincipal TokenPrincipal principal) throws InterruptedException {
+            Thread.sleep(BLOCKING_MILLIS);
+            // принципал из SecurityContextHolder того же потока, что и до блокировки
+            return principal.email() + " " + Thread.currentThread().isVirtual();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ru.javacode.springmvcjsonview.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
+import ru.javacode.springmvcjsonview.view.Views;
+import ru.javacode.springmvcjsonview.view.WireFormat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время кодирования и разбора и размер тела в JSON, Smile и CBOR: список заказов с {@code Views.OrderSummary}
+ * и пользователь с {@code size} заказами в {@code Views.UserDetails}.
+ * Размеры тел попадают в результат вторичными метриками {@link #encodedSize(EncodedSize)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    private WireFormat format;
+
+    private List<Order> orders;
+    private User user;
+    private ObjectWriter ordersWriter;
+    private ObjectWriter userWriter;
+    private ObjectReader ordersReader;
+    private ObjectReader userReader;
+    private byte[] encodedOrders;
+    private byte[] encodedUser;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        switch (format) {
+            case SMILE -> builder.factory(new SmileFactory());
+            case CBOR -> builder.factory(new CBORFactory());
+            case JSON -> {
+            }
+        }
+        ObjectMapper objectMapper = builder.build();
+        ViewCompiler viewCompiler = new ViewCompiler(objectMapper, Views.class, Order.class, User.class);
+        JavaType orderList = objectMapper.getTypeFactory().constructCollectionType(List.class, Order.class);
+
+        user = Fixtures.user(1, size);
+        orders = Fixtures.orders(Fixtures.user(2, 0), size);
+        ordersWriter = viewCompiler.writerFor(orderList, Views.OrderSummary.class);
+        userWriter = viewCompiler.writerFor(User.class, Views.UserDetails.class);
+        ordersReader = objectMapper.readerFor(orderList);
+        userReader = objectMapper.readerFor(User.class);
+        encodedOrders = ordersWriter.writeValueAsBytes(orders);
+        encodedUser = userWriter.writeValueAsBytes(user);
+    }
+
+    // счётчики EVENTS суммируются по итерациям, поэтому размер снимается одним вызовом без прогрева
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void encodedSize(EncodedSize encodedSize) {
+        encodedSize.ordersBytes = encodedOrders.length;
+        encodedSize.userBytes = encodedUser.length;
+    }
+
+    @Benchmark
+    public byte[] encodeOrders() throws IOException {
+        return ordersWriter.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public List<Order> decodeOrders() throws IOException {
+        return ordersReader.readValue(encodedOrders);
+    }
+
+    @Benchmark
+    public byte[] encodeUser() throws IOException {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User decodeUser() throws IOException {
+        return userReader.readValue(encodedUser);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        public long ordersBytes;
+        public long userBytes;
+    }
+}
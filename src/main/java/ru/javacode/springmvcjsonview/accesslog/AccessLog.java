@@ -0,0 +1,147 @@
+package ru.javacode.springmvcjsonview.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.javacode.springmvcjsonview.config.AccessLogProperties;
+import ru.javacode.springmvcjsonview.config.BackgroundThreads;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Журнал запросов: поток запроса только кладёт запись в {@link AccessLogRingBuffer}, в лог её пишет
+ * фоновый поток раз в {@code drainInterval}. Запросы выбираются с долей по маршруту, ответы 5xx пишутся
+ * всегда. Переполнение буфера не задерживает запрос — запись отбрасывается и учитывается в
+ * {@code access.log.records{result=dropped}}.
+ */
+@Component
+public class AccessLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final Map<String, Double> routeSampleRates;
+    private final AccessLogRingBuffer<AccessLogRecord> buffer;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter sampledOut;
+    private final ScheduledExecutorService writer;
+    // у буфера один читатель: выгрузка по расписанию и при остановке не должны пересекаться
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final StringBuilder line = new StringBuilder(160);
+
+    public AccessLog(AccessLogProperties properties, MeterRegistry meterRegistry,
+                     BackgroundThreads backgroundThreads) {
+        this.enabled = properties.enabled();
+        this.sampleRate = properties.sampleRate();
+        this.routeSampleRates = properties.routes() == null ? Map.of() : Map.copyOf(properties.routes());
+        this.buffer = new AccessLogRingBuffer<>(properties.bufferSize());
+        this.written = records(meterRegistry, "written");
+        this.dropped = records(meterRegistry, "dropped");
+        this.sampledOut = records(meterRegistry, "sampled_out");
+        Gauge.builder("access.log.pending", buffer, AccessLogRingBuffer::size)
+                .description("Записи журнала запросов, ещё не выгруженные в лог")
+                .register(meterRegistry);
+        this.writer = Executors.newSingleThreadScheduledExecutor(backgroundThreads.factory("access-log-"));
+        long drainMillis = properties.drainInterval().toMillis();
+        writer.scheduleWithFixedDelay(this::drainQuietly, drainMillis, drainMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Решает, писать ли запрос по этому маршруту; вызывается до сборки записи.
+     */
+    public boolean sample(String route, int status) {
+        if (status >= 500) {
+            return true;
+        }
+        double rate = routeSampleRates.getOrDefault(route, sampleRate);
+        if (rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return true;
+        }
+        sampledOut.increment();
+        return false;
+    }
+
+    /**
+     * Кладёт запись в буфер и не ждёт; при переполнении запись теряется.
+     */
+    public void offer(AccessLogRecord record) {
+        if (!buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Выгружает всё накопленное в лог; вызывается фоновым потоком, а при остановке — ещё раз.
+     *
+     * @return сколько записей выгружено
+     */
+    public int drain() {
+        drainLock.lock();
+        try {
+            int count = 0;
+            AccessLogRecord record;
+            while ((record = buffer.poll()) != null) {
+                if (logger.isInfoEnabled()) {
+                    logger.info(format(record));
+                }
+                count++;
+            }
+            written.increment(count);
+            return count;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось выгрузить журнал запросов", e);
+        }
+    }
+
+    private String format(AccessLogRecord record) {
+        line.setLength(0);
+        line.append("method=").append(record.method())
+                .append(" route=").append(record.route())
+                .append(" status=").append(record.status())
+                .append(" latency_us=").append(record.latencyMicros())
+                .append(" bytes=").append(record.bytes())
+                .append(" principal=").append(record.principal() == null ? "-" : record.principal());
+        return line.toString();
+    }
+
+    private static Counter records(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("access.log.records")
+                .tag("result", result)
+                .description("Запросы, прошедшие через журнал запросов")
+                .register(meterRegistry);
+    }
+}
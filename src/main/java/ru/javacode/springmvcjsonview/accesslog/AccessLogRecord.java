@@ -0,0 +1,13 @@
+package ru.javacode.springmvcjsonview.accesslog;
+
+/**
+ * Одна запись журнала запросов.
+ *
+ * @param route         шаблон маршрута, а если обработчик не найден — URI запроса
+ * @param latencyMicros время обработки, включая дописывание потокового ответа
+ * @param bytes         размер тела ответа до сжатия
+ * @param principal     id пользователя, имя для прочих аутентификаций или {@code null}
+ */
+public record AccessLogRecord(String method, String route, int status, long latencyMicros, long bytes,
+                              String principal) {
+}
@@ -0,0 +1,71 @@
+package ru.javacode.springmvcjsonview.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ограниченная очередь без блокировок для многих писателей и одного читателя (схема Вьюкова):
+ * у каждой ячейки свой номер последовательности, писатель занимает ячейку CAS-ом по хвосту.
+ * {@link #offer(Object)} никогда не ждёт: при заполненном буфере сразу возвращает {@code false}.
+ */
+final class AccessLogRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // меняет только поток выгрузки; volatile ради оценки размера из других потоков
+    private volatile long head;
+
+    AccessLogRingBuffer(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available < 0) {
+                return false; // ячейку ещё не освободил читатель — буфер полон
+            }
+            if (available == 0 && tail.compareAndSet(position, position + 1)) {
+                elements.lazySet(index, element);
+                sequences.lazySet(index, position + 1);
+                return true;
+            }
+            // ячейку занял другой писатель — пробуем следующую позицию
+        }
+    }
+
+    /**
+     * Вызывается только из одного потока.
+     */
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.lazySet(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, capacity()));
+    }
+}
@@ -0,0 +1,166 @@
+package ru.javacode.springmvcjsonview.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.javacode.springmvcjsonview.config.ResponseCacheProperties;
+import ru.javacode.springmvcjsonview.dto.OrderVersion;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.dto.UserVersion;
+import ru.javacode.springmvcjsonview.event.OrderChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.ViewCompilers;
+import ru.javacode.springmvcjsonview.view.WireFormat;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Готовые тела ответов GET /orders/{id} и /users/{id} вместе с их ETag, ключ — (тип, id, view, формат).
+ * Ограничен по суммарному размеру тел; записи сбрасываются после коммита изменений.
+ * Тела заказов включают владельца, поэтому они индексируются по его id и сбрасываются по ключу.
+ */
+@Component
+public class RenderedResponseCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final ViewCompilers viewCompilers;
+    private final Cache<Key, Entry> cache;
+    private final Map<Long, Map<Key, Entry>> ordersByOwner = new ConcurrentHashMap<>();
+    // заказы, которые загружаются прямо сейчас: их владелец ещё неизвестен
+    private final Set<Key> loadingOrders = ConcurrentHashMap.newKeySet();
+
+    public RenderedResponseCache(ViewCompilers viewCompilers,
+                                 ResponseCacheProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.viewCompilers = viewCompilers;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.maxSize().toBytes())
+                .<Key, Entry>weigher((key, entry) -> entry.body().length + ENTRY_OVERHEAD_BYTES)
+                .<Key, Entry>removalListener((key, entry, cause) -> unindex(key, entry))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "rendered-responses");
+    }
+
+    public Tagged<byte[]> order(Long orderId, Class<?> view, WireFormat format, Supplier<Order> loader) {
+        return cache.get(new Key(Order.class, orderId, view, format), key -> {
+            loadingOrders.add(key);
+            try {
+                Order order = loader.get();
+                OrderVersion version = OrderVersion.of(order);
+                Entry entry = new Entry(render(format, Order.class, order, view), format.eTag(version.eTag()),
+                        version.userId());
+                index(key, entry);
+                return entry;
+            } finally {
+                loadingOrders.remove(key);
+            }
+        }).tagged();
+    }
+
+    public Tagged<byte[]> user(Long userId, Class<?> view, WireFormat format, Supplier<User> loader) {
+        return cache.get(new Key(User.class, userId, view, format), key -> {
+            User user = loader.get();
+            return new Entry(render(format, User.class, user, view), format.eTag(UserVersion.of(user).eTag()), userId);
+        }).tagged();
+    }
+
+    /**
+     * Готовое тело без загрузки и без учёта в статистике, {@code null}, если его нет.
+     */
+    public Tagged<byte[]> peekOrder(Long orderId, Class<?> view, WireFormat format) {
+        return peek(new Key(Order.class, orderId, view, format));
+    }
+
+    public Tagged<byte[]> peekUser(Long userId, Class<?> view, WireFormat format) {
+        return peek(new Key(User.class, userId, view, format));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        evict(Order.class, event.orderId());
+        if (event.userId() != null) {
+            evict(User.class, event.userId()); // UserDetails содержит заказы пользователя
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(User.class, event.userId());
+        // OrderDetails содержит владельца. Загружаемые сейчас заказы сбрасываются все: загрузка индексирует
+        // владельца раньше, чем снимается отметка, а invalidate ждёт её завершения, поэтому старый снимок
+        // владельца не остаётся в кэше
+        loadingOrders.forEach(cache::invalidate);
+        Map<Key, Entry> owned = ordersByOwner.get(event.userId());
+        if (owned != null) {
+            owned.keySet().forEach(cache::invalidate);
+        }
+    }
+
+    private void index(Key key, Entry entry) {
+        if (entry.ownerId() != null) {
+            ordersByOwner.compute(entry.ownerId(), (ownerId, owned) -> {
+                Map<Key, Entry> keys = owned == null ? new ConcurrentHashMap<>() : owned;
+                keys.put(key, entry);
+                return keys;
+            });
+        }
+    }
+
+    private void unindex(Key key, Entry entry) {
+        if (key != null && entry != null && key.type() == Order.class && entry.ownerId() != null) {
+            // удаляется только эта запись: тот же ключ мог уже загрузиться заново
+            ordersByOwner.computeIfPresent(entry.ownerId(), (ownerId, owned) -> {
+                owned.remove(key, entry);
+                return owned.isEmpty() ? null : owned;
+            });
+        }
+    }
+
+    private Tagged<byte[]> peek(Key key) {
+        Entry entry = cache.policy().getIfPresentQuietly(key);
+        return entry == null ? null : entry.tagged();
+    }
+
+    private void evict(Class<?> type, Long id) {
+        for (WireFormat format : viewCompilers.formats()) {
+            for (Class<?> view : viewCompilers.forFormat(format).viewsOf(type)) {
+                cache.invalidate(new Key(type, id, view, format));
+            }
+        }
+    }
+
+    private byte[] render(WireFormat format, Class<?> type, Object value, Class<?> view) {
+        try {
+            return viewCompilers.forFormat(format).writerFor(type, view).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private record Key(Class<?> type, Long id, Class<?> view, WireFormat format) {
+    }
+
+    private record Entry(byte[] body, String eTag, Long ownerId) {
+
+        Tagged<byte[]> tagged() {
+            return new Tagged<>(body, eTag);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.javacode.springmvcjsonview.compression;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import ru.javacode.springmvcjsonview.config.CompressionProperties;
+
+/**
+ * Сжатые тела ответов со строгим ETag. Строгий ETag однозначно определяет байты представления,
+ * поэтому ключ (путь, ETag, кодек, уровень) не устаревает и отдельной инвалидации не требует —
+ * записи старых версий просто вытесняются по размеру.
+ */
+@Component
+public class CompressedBodyCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final Cache<Key, Entry> cache;
+
+    public CompressedBodyCache(CompressionProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.cacheMaxSize().toBytes())
+                .<Key, Entry>weigher((key, entry) -> entry.encoded().length + ENTRY_OVERHEAD_BYTES)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "compressed-responses");
+    }
+
+    public byte[] encode(String path, String eTag, ContentCoding coding, int level, byte[] body) {
+        Key key = new Key(path, eTag, coding, level);
+        Entry entry = cache.get(key, k -> new Entry(body.length, coding.encode(body, level)));
+        if (entry.sourceLength() != body.length) {
+            // тег не соответствует телу — сервер выдал один ETag разным представлениям; не доверяем кэшу
+            entry = new Entry(body.length, coding.encode(body, level));
+            cache.put(key, entry);
+        }
+        return entry.encoded();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private record Key(String path, String eTag, ContentCoding coding, int level) {
+    }
+
+    private record Entry(int sourceLength, byte[] encoded) {
+    }
+}
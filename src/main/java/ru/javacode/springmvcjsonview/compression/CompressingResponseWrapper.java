@@ -0,0 +1,289 @@
+package ru.javacode.springmvcjsonview.compression;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Копит тело до порога {@code minSize}: маленькие ответы уходят как есть, большие — сжатыми потоком.
+ * Ответ на GET, у которого к порогу уже выставлен строгий ETag, копится целиком и сжимается через
+ * {@link CompressedBodyCache}. Потоковые ответы (запись идёт в async-обработке) не копятся вовсе:
+ * сжатие начинается с первой записи, и каждый flush() доходит до клиента.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum Mode { BUFFER, ENCODE, PASS }
+
+    private final ContentCoding coding;
+    private final int level;
+    private final int minSize;
+    private final boolean cacheable;
+    private final BooleanSupplier streaming;
+    private final boolean conditionalTagEncoded;
+    private final String path;
+    private final CompressedBodyCache cache;
+
+    private final FastByteArrayOutputStream buffer = new FastByteArrayOutputStream(1024);
+    private Mode mode = Mode.BUFFER;
+    private OutputStream encoder;
+    private long contentLength = -1;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CompressingResponseWrapper(HttpServletResponse response, ContentCoding coding, int level, int minSize,
+                               boolean cacheable, BooleanSupplier streaming, boolean conditionalTagEncoded,
+                               String path, CompressedBodyCache cache) {
+        super(response);
+        this.coding = coding;
+        this.level = level;
+        this.minSize = minSize;
+        this.cacheable = cacheable;
+        this.streaming = streaming;
+        this.conditionalTagEncoded = conditionalTagEncoded;
+        this.path = path;
+        this.cache = cache;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (mode == Mode.PASS) {
+            super.setContentLengthLong(len);
+        } else {
+            contentLength = len; // длину сжатого тела заранее не знаем
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (isContentLength(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (isContentLength(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new CompressingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (mode == Mode.ENCODE) {
+            encoder.flush();
+        }
+        if (mode != Mode.BUFFER) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        buffer.reset();
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        buffer.reset();
+        contentLength = -1;
+        super.reset();
+    }
+
+    /**
+     * Дописывает накопленное тело; вызывается один раз после завершения обработки запроса.
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        switch (mode) {
+            case ENCODE -> encoder.close();
+            case PASS -> {
+            }
+            case BUFFER -> {
+                mode = Mode.PASS;
+                byte[] body = buffer.toByteArrayUnsafe();
+                if (body.length >= minSize && isCompressible()) {
+                    String eTag = getHeader(HttpHeaders.ETAG);
+                    byte[] encoded = cacheable && isStrong(eTag)
+                            ? cache.encode(path, eTag, coding, level, body)
+                            : coding.encode(body, level);
+                    markEncoded();
+                    super.setContentLengthLong(encoded.length);
+                    super.getOutputStream().write(encoded);
+                } else {
+                    if (getStatus() == HttpServletResponse.SC_NOT_MODIFIED && conditionalTagEncoded) {
+                        suffixETag(); // 304 подтверждает именно сжатое представление, которое есть у клиента
+                    }
+                    if (isVaried()) {
+                        addVary();
+                    }
+                    if (contentLength >= 0) {
+                        super.setContentLengthLong(contentLength);
+                    }
+                    if (body.length > 0) {
+                        super.getOutputStream().write(body);
+                    }
+                }
+            }
+        }
+        super.flushBuffer();
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        switch (mode) {
+            case PASS -> super.getOutputStream().write(b, off, len);
+            case ENCODE -> encoder.write(b, off, len);
+            case BUFFER -> {
+                buffer.write(b, off, len);
+                if (streaming.getAsBoolean() || (buffer.size() >= minSize && !isHeldForCache())) {
+                    startEncoding();
+                }
+            }
+        }
+    }
+
+    private void startEncoding() throws IOException {
+        if (!isCompressible()) {
+            mode = Mode.PASS;
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+        } else {
+            mode = Mode.ENCODE;
+            markEncoded();
+            encoder = coding.encoder(StreamUtils.nonClosing(super.getOutputStream()), level);
+        }
+        buffer.writeTo(mode == Mode.ENCODE ? encoder : super.getOutputStream());
+        buffer.reset();
+    }
+
+    /**
+     * Целиком копится только ответ, который потом можно взять из кэша по строгому ETag.
+     */
+    private boolean isHeldForCache() {
+        return cacheable && isStrong(getHeader(HttpHeaders.ETAG));
+    }
+
+    private boolean isCompressible() {
+        int status = getStatus();
+        return status >= 200 && status < 300 && status != HttpServletResponse.SC_NO_CONTENT
+                && getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+    }
+
+    private boolean isVaried() {
+        return isCompressible() || getStatus() == HttpServletResponse.SC_NOT_MODIFIED;
+    }
+
+    private void markEncoded() {
+        super.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+        suffixETag();
+        addVary();
+    }
+
+    private void suffixETag() {
+        String eTag = getHeader(HttpHeaders.ETAG);
+        if (isStrong(eTag)) {
+            super.setHeader(HttpHeaders.ETAG, eTag.substring(0, eTag.length() - 1) + coding.eTagSuffix() + "\"");
+        }
+    }
+
+    private void addVary() {
+        super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private static boolean isStrong(String eTag) {
+        return eTag != null && eTag.startsWith("\"") && eTag.endsWith("\"") && eTag.length() > 1;
+    }
+
+    private static boolean isContentLength(String name) {
+        return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            CompressingResponseWrapper.this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            CompressingResponseWrapper.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (mode == Mode.BUFFER && streaming.getAsBoolean()) {
+                startEncoding();
+            }
+            // вне потоковой записи flush() в BUFFER ничего не делает: конвертеры сбрасывают поток после
+            // каждого тела, и решение о сжатии принимается в finish()
+            if (mode == Mode.ENCODE) {
+                encoder.flush();
+            }
+            if (mode != Mode.BUFFER) {
+                CompressingResponseWrapper.super.getOutputStream().flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            // пока тело копится в памяти, запись не упирается в клиента
+            return mode == Mode.BUFFER || target().isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target().setWriteListener(writeListener);
+        }
+
+        private ServletOutputStream target() {
+            try {
+                return CompressingResponseWrapper.super.getOutputStream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.javacode.springmvcjsonview.compression;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import ru.javacode.springmvcjsonview.config.CompressionProperties;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Сжимает ответы gzip или zstd по Accept-Encoding. Стоит первым, чтобы оборачивать и потоковые ответы,
+ * которые дописываются в async-диспетчеризации. К строгому ETag сжатого ответа добавляется суффикс
+ * кодека, а из If-None-Match/If-Match он снимается, чтобы контроллеры сравнивали теги как раньше.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final Pattern CODING_SUFFIX = Pattern.compile("-(?:zstd|gzip)\"");
+
+    private final CompressionProperties properties;
+    private final CompressedBodyCache cache;
+    private final Map<PathPattern, CompressionProperties.Levels> endpointLevels = new LinkedHashMap<>();
+
+    public CompressionFilter(CompressionProperties properties, CompressedBodyCache cache) {
+        this.properties = properties;
+        this.cache = cache;
+        Map<String, CompressionProperties.Levels> endpoints =
+                properties.endpoints() == null ? Map.of() : properties.endpoints();
+        endpoints.keySet().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .sorted(PathPattern.SPECIFICITY_COMPARATOR)
+                .forEach(pattern -> endpointLevels.put(pattern, endpoints.get(pattern.getPatternString())));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CompressingResponseWrapper existing = WebUtils.getNativeResponse(response, CompressingResponseWrapper.class);
+        if (existing != null) {
+            // async-диспетчеризация потокового ответа: обёртка создана на исходном запросе
+            filterChain.doFilter(request, response);
+            finishUnlessAsync(request, existing);
+            return;
+        }
+
+        CompressionProperties.Levels levels = levelsFor(request);
+        ContentCoding coding = ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING),
+                availableCodings(levels));
+        if (coding == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean conditionalTagEncoded = hasEncodedTag(request, HttpHeaders.IF_NONE_MATCH);
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, coding, levels.of(coding),
+                (int) properties.minSize().toBytes(), HttpMethod.GET.matches(request.getMethod()),
+                request::isAsyncStarted, conditionalTagEncoded, request.getRequestURI(), cache);
+        filterChain.doFilter(new ConditionalTagsRequest(request), wrapper);
+        finishUnlessAsync(request, wrapper);
+    }
+
+    private void finishUnlessAsync(HttpServletRequest request, CompressingResponseWrapper wrapper) throws IOException {
+        if (!isAsyncStarted(request)) {
+            wrapper.finish();
+        }
+    }
+
+    private CompressionProperties.Levels levelsFor(HttpServletRequest request) {
+        if (!endpointLevels.isEmpty()) {
+            PathContainer path = PathContainer.parsePath(request.getRequestURI()
+                    .substring(request.getContextPath().length()));
+            for (Map.Entry<PathPattern, CompressionProperties.Levels> entry : endpointLevels.entrySet()) {
+                if (entry.getKey().matches(path)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return properties.levels();
+    }
+
+    private static Set<ContentCoding> availableCodings(CompressionProperties.Levels levels) {
+        Set<ContentCoding> available = EnumSet.noneOf(ContentCoding.class);
+        for (ContentCoding coding : ContentCoding.values()) {
+            if (levels.of(coding) > 0) {
+                available.add(coding);
+            }
+        }
+        return available;
+    }
+
+    private static boolean hasEncodedTag(HttpServletRequest request, String header) {
+        String value = request.getHeader(header);
+        return value != null && CODING_SUFFIX.matcher(value).find();
+    }
+
+    private static String stripCodingSuffix(String value) {
+        return value == null ? null : CODING_SUFFIX.matcher(value).replaceAll("\"");
+    }
+
+    private static boolean isConditional(String name) {
+        return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) || HttpHeaders.IF_MATCH.equalsIgnoreCase(name);
+    }
+
+    private static class ConditionalTagsRequest extends HttpServletRequestWrapper {
+
+        ConditionalTagsRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return isConditional(name) ? stripCodingSuffix(value) : value;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            Enumeration<String> values = super.getHeaders(name);
+            if (!isConditional(name)) {
+                return values;
+            }
+            return Collections.enumeration(Collections.list(values).stream()
+                    .map(CompressionFilter::stripCodingSuffix)
+                    .toList());
+        }
+    }
+}
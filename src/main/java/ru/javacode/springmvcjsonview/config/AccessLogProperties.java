@@ -0,0 +1,25 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Журнал запросов {@link ru.javacode.springmvcjsonview.accesslog.AccessLog}. Доля записываемых запросов
+ * переопределяется по шаблону маршрута: {@code app.access-log.routes[/api/v1/orders/{id}]=0.1}.
+ *
+ * @param enabled       писать ли журнал запросов
+ * @param bufferSize    ёмкость кольцевого буфера, округляется вверх до степени двойки; при переполнении записи теряются
+ * @param drainInterval как часто фоновый поток выгружает буфер в лог
+ * @param sampleRate    доля записываемых запросов для маршрутов без своей настройки, от 0 до 1
+ * @param routes        доля записываемых запросов по шаблону маршрута
+ */
+@ConfigurationProperties(prefix = "app.access-log")
+public record AccessLogProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("8192") int bufferSize,
+                                  @DefaultValue("100ms") Duration drainInterval,
+                                  @DefaultValue("1.0") double sampleRate,
+                                  Map<String, Double> routes) {
+}
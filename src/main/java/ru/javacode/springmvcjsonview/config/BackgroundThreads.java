@@ -0,0 +1,38 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Потоки для собственных фоновых исполнителей приложения: виртуальные при
+ * {@code spring.threads.virtual.enabled=true}, как у Tomcat и {@code @Async}, иначе обычные.
+ */
+@Component
+public class BackgroundThreads {
+
+    private final boolean virtual;
+
+    @Autowired
+    public BackgroundThreads(Environment environment) {
+        this(Threading.VIRTUAL.isActive(environment));
+    }
+
+    public BackgroundThreads(boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public ThreadFactory factory(String namePrefix) {
+        return virtual
+                ? Thread.ofVirtual().name(namePrefix, 1).factory()
+                : new CustomizableThreadFactory(namePrefix);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+}
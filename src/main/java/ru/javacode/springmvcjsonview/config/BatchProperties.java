@@ -0,0 +1,12 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Пакетная вставка: элементы проверяются и вставляются порциями по {@code chunkSize},
+ * одна порция — один JDBC batch и один сброс контекста персистентности.
+ */
+@ConfigurationProperties(prefix = "app.batch")
+public record BatchProperties(@DefaultValue("500") int chunkSize) {
+}
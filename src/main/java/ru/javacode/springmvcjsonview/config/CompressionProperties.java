@@ -0,0 +1,30 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+import ru.javacode.springmvcjsonview.compression.ContentCoding;
+
+import java.util.Map;
+
+/**
+ * Сжатие ответов. Уровни можно переопределить для отдельных путей:
+ * {@code app.compression.endpoints[/api/v1/orders].gzip=1}; уровень 0 отключает кодек для пути.
+ */
+@ConfigurationProperties(prefix = "app.compression")
+public record CompressionProperties(@DefaultValue("true") boolean enabled,
+                                    @DefaultValue("1KB") DataSize minSize,
+                                    @DefaultValue Levels levels,
+                                    Map<String, Levels> endpoints,
+                                    @DefaultValue("16MB") DataSize cacheMaxSize) {
+
+    public record Levels(@DefaultValue("6") int gzip, @DefaultValue("3") int zstd) {
+
+        public int of(ContentCoding coding) {
+            return switch (coding) {
+                case GZIP -> gzip;
+                case ZSTD -> zstd;
+            };
+        }
+    }
+}
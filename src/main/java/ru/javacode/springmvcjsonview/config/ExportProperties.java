@@ -0,0 +1,11 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Выгрузка в NDJSON: после каждых {@code chunkSize} строк ответ сбрасывается клиенту.
+ */
+@ConfigurationProperties(prefix = "app.export")
+public record ExportProperties(@DefaultValue("1000") int chunkSize) {
+}
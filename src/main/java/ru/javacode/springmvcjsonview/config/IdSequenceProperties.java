@@ -0,0 +1,12 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Шаг последовательностей id: столько id приложение берёт за одно обращение к последовательности.
+ * Применяется миграцией при создании последовательностей; Hibernate берёт шаг из базы.
+ */
+@ConfigurationProperties(prefix = "app.id-sequence")
+public record IdSequenceProperties(@DefaultValue("50") int allocationSize) {
+}
@@ -0,0 +1,69 @@
+package ru.javacode.springmvcjsonview.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.CompiledViewCborHttpMessageConverter;
+import ru.javacode.springmvcjsonview.view.CompiledViewHttpMessageConverter;
+import ru.javacode.springmvcjsonview.view.CompiledViewSmileHttpMessageConverter;
+import ru.javacode.springmvcjsonview.view.StreamingViewWriter;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
+import ru.javacode.springmvcjsonview.view.ViewCompilers;
+import ru.javacode.springmvcjsonview.view.Views;
+import ru.javacode.springmvcjsonview.view.WireFormat;
+
+import java.util.Map;
+
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public ViewCompiler viewCompiler(ObjectMapper objectMapper) {
+        return new ViewCompiler(objectMapper, Views.class, Order.class, User.class);
+    }
+
+    @Bean
+    public ViewCompilers viewCompilers(ViewCompiler viewCompiler,
+                                       ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        // бинарные мапперы собираются тем же билдером, что и JSON, чтобы настройки Jackson совпадали
+        ObjectMapper smileMapper = builders.getIfAvailable(Jackson2ObjectMapperBuilder::json)
+                .factory(new SmileFactory())
+                .build();
+        ObjectMapper cborMapper = builders.getIfAvailable(Jackson2ObjectMapperBuilder::json)
+                .factory(new CBORFactory())
+                .build();
+        return new ViewCompilers(Map.of(
+                WireFormat.JSON, viewCompiler,
+                WireFormat.SMILE, new ViewCompiler(smileMapper, Views.class, Order.class, User.class),
+                WireFormat.CBOR, new ViewCompiler(cborMapper, Views.class, Order.class, User.class)));
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ViewCompiler viewCompiler) {
+        return new CompiledViewHttpMessageConverter(viewCompiler);
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ViewCompilers viewCompilers) {
+        return new CompiledViewSmileHttpMessageConverter(viewCompilers.forFormat(WireFormat.SMILE));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ViewCompilers viewCompilers) {
+        return new CompiledViewCborHttpMessageConverter(viewCompilers.forFormat(WireFormat.CBOR));
+    }
+
+    @Bean
+    public StreamingViewWriter streamingViewWriter(ViewCompilers viewCompilers) {
+        return new StreamingViewWriter(viewCompilers);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param claimsOnly {@code true} — пользователь запроса собирается из claims access-токена без чтения users;
+ *                   блокировки доходят до запросов через отзыв токенов и короткий {@code accessTokenTtl}
+ */
+@ConfigurationProperties(prefix = "app.security.jwt")
+public record JwtProperties(@DefaultValue("24h") Duration accessTokenTtl,
+                            @DefaultValue("24h") Duration refreshTokenTtl,
+                            @DefaultValue("false") boolean claimsOnly) {
+}
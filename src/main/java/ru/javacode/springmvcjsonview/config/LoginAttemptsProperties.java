@@ -0,0 +1,23 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Политика блокировки в {@link ru.javacode.springmvcjsonview.security.FailedLoginTracker}.
+ *
+ * @param maxAttempts   сколько неудачных входов внутри {@code window} блокируют учётную запись
+ * @param window        скользящее окно подсчёта неудачных входов
+ * @param lockDuration  сколько длится блокировка
+ * @param flushInterval как часто блокировки и разблокировки пишутся в базу одной пачкой
+ * @param maximumSize   сколько учётных записей с неудачными входами держать одновременно
+ */
+@ConfigurationProperties(prefix = "app.security.login-attempts")
+public record LoginAttemptsProperties(@DefaultValue("5") int maxAttempts,
+                                      @DefaultValue("15m") Duration window,
+                                      @DefaultValue("15m") Duration lockDuration,
+                                      @DefaultValue("1s") Duration flushInterval,
+                                      @DefaultValue("100000") long maximumSize) {
+}
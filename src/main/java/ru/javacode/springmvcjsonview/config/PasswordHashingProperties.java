@@ -0,0 +1,23 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Пул для BCrypt в {@link ru.javacode.springmvcjsonview.security.BoundedPasswordEncoder}.
+ *
+ * @param cpuShare      доля ядер, отданная под хеширование; потоков не меньше одного
+ * @param queueCapacity сколько проверок может ждать свободного потока, остальные получают 503
+ * @param retryAfter    значение заголовка Retry-After в ответе 503
+ */
+@ConfigurationProperties(prefix = "app.security.password-hashing")
+public record PasswordHashingProperties(@DefaultValue("0.5") double cpuShare,
+                                        @DefaultValue("64") int queueCapacity,
+                                        @DefaultValue("1s") Duration retryAfter) {
+
+    public int threads() {
+        return Math.max(1, (int) (Runtime.getRuntime().availableProcessors() * cpuShare));
+    }
+}
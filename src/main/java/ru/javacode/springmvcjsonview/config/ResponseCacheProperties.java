@@ -0,0 +1,9 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "app.response-cache")
+public record ResponseCacheProperties(@DefaultValue("64MB") DataSize maxSize) {
+}
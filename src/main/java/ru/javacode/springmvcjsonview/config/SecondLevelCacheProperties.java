@@ -0,0 +1,24 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Размеры и время жизни регионов кэша второго уровня Hibernate.
+ *
+ * @param regions настройки отдельных регионов по имени; остальные регионы берут {@code defaults}
+ */
+@ConfigurationProperties(prefix = "app.second-level-cache")
+public record SecondLevelCacheProperties(@DefaultValue Region defaults,
+                                         @DefaultValue Map<String, Region> regions) {
+
+    public Region region(String name) {
+        return regions.getOrDefault(name, defaults);
+    }
+
+    public record Region(@DefaultValue("10000") long maximumSize, @DefaultValue("10m") Duration ttl) {
+    }
+}
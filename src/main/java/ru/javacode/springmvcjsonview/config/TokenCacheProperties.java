@@ -0,0 +1,15 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Кэш проверенных access-токенов в {@link ru.javacode.springmvcjsonview.security.VerifiedTokenCache}.
+ *
+ * @param enabled     {@code false} — каждый запрос проверяет подпись токена заново
+ * @param maximumSize сколько разных токенов держать одновременно
+ */
+@ConfigurationProperties(prefix = "app.security.token-cache")
+public record TokenCacheProperties(@DefaultValue("true") boolean enabled,
+                                   @DefaultValue("10000") long maximumSize) {
+}
@@ -0,0 +1,21 @@
+package ru.javacode.springmvcjsonview.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Кэш email → id пользователя в {@link ru.javacode.springmvcjsonview.security.UserLookupCache}.
+ *
+ * @param enabled     {@code false} — каждый поиск по email идёт в базу
+ * @param maximumSize сколько разных email держать одновременно, вместе с неизвестными
+ * @param ttl         срок записи для существующего пользователя
+ * @param negativeTtl срок записи для неизвестного email
+ */
+@ConfigurationProperties(prefix = "app.security.user-cache")
+public record UserLookupCacheProperties(@DefaultValue("true") boolean enabled,
+                                        @DefaultValue("10000") long maximumSize,
+                                        @DefaultValue("10m") Duration ttl,
+                                        @DefaultValue("1m") Duration negativeTtl) {
+}
@@ -0,0 +1,110 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.exception.PreconditionFailedException;
+import ru.javacode.springmvcjsonview.view.WireFormat;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Ответ на GET по id. Если тела нет в кэше, а клиент прислал If-None-Match, сначала сверяется
+     * только версия — при совпадении строка не загружается и тело не сериализуется.
+     * Совпадение с уже готовым телом превращает в 304 сам Spring MVC по заголовку ETag.
+     * Тег версии дополняется суффиксом формата, а ответ помечается Vary: Accept.
+     */
+    static ResponseEntity<byte[]> render(WireFormat format,
+                                         String ifNoneMatch,
+                                         Tagged<byte[]> cached,
+                                         Supplier<String> currentETag,
+                                         Supplier<Tagged<byte[]>> renderer) {
+        if (cached == null && ifNoneMatch != null) {
+            String eTag = format.eTag(currentETag.get());
+            if (matchesAny(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .build();
+            }
+        }
+        Tagged<byte[]> response = cached != null ? cached : renderer.get();
+        return ResponseEntity.ok()
+                .eTag(response.eTag())
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(response.body());
+    }
+
+    /**
+     * Ответ на GET по id с {@code ?fields=}: такие тела не кэшируются и не получают ETag,
+     * иначе разные наборы полей одной версии делили бы один тег.
+     */
+    static <T> ResponseEntity<byte[]> renderUncached(WireFormat format, ObjectWriter writer, Supplier<T> loader) {
+        byte[] body;
+        try {
+            body = writer.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write " + format + ": " + e.getOriginalMessage(), e);
+        }
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /**
+     * Версия, которой должно соответствовать обновление по If-Match, или {@code null}, если условия нет.
+     * Для If-Match допустимо только строгое сравнение, слабые теги не совпадают никогда.
+     * Суффикс формата отбрасывается: тег, полученный в CBOR, годится и для обновления в JSON.
+     */
+    static <V> V expectedVersion(String ifMatch, Function<String, V> parser, Supplier<String> currentETag) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> eTags = ETag.parse(ifMatch);
+        if (eTags.stream().anyMatch(ETag::isWildcard)) {
+            return null;
+        }
+        List<String> strongTags = eTags.stream()
+                .filter(eTag -> !eTag.weak())
+                .map(ETag::tag)
+                .map(WireFormat::versionTag)
+                .toList();
+        String tag = switch (strongTags.size()) {
+            case 0 -> null;
+            case 1 -> strongTags.getFirst();
+            default -> {
+                // несколько тегов — редкий случай, сверяем с текущим и обновляем условно по нему
+                String current = currentETag.get();
+                yield strongTags.contains(current) ? current : null;
+            }
+        };
+        V version = tag == null ? null : parser.apply(tag);
+        if (version == null) {
+            throw new PreconditionFailedException("If-Match does not match the current entity tag");
+        }
+        return version;
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String eTag) {
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.tag().equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+final class KeysetCursors {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int MAX_LIMIT = 500;
+
+    private KeysetCursors() {
+    }
+
+    static String encode(Long key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    static HttpHeaders nextPageHeaders(KeysetPage<?> page, int limit) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext()) {
+            String cursor = encode(page.nextKey());
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", cursor)
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            headers.add(NEXT_CURSOR_HEADER, cursor);
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -2,23 +2,49 @@ package ru.javacode.springmvcjsonview.controller;
 
 
 import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.javacode.springmvcjsonview.cache.RenderedResponseCache;
+import ru.javacode.springmvcjsonview.config.ExportProperties;
+import ru.javacode.springmvcjsonview.dto.BatchItemResult;
+import ru.javacode.springmvcjsonview.dto.BulkUpdateResult;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.OrderStats;
+import ru.javacode.springmvcjsonview.dto.OrderStatusTransition;
+import ru.javacode.springmvcjsonview.dto.OrderVersion;
+import ru.javacode.springmvcjsonview.dto.Tagged;
 import ru.javacode.springmvcjsonview.model.Order;
 import ru.javacode.springmvcjsonview.service.OrderService;
+import ru.javacode.springmvcjsonview.view.SparseFields;
+import ru.javacode.springmvcjsonview.view.StreamingViewWriter;
+import ru.javacode.springmvcjsonview.view.ViewCompilers;
 import ru.javacode.springmvcjsonview.view.Views;
+import ru.javacode.springmvcjsonview.view.WireFormat;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,6 +53,11 @@ import java.util.UUID;
 @AllArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final StreamingViewWriter streamingViewWriter;
+    private final RenderedResponseCache renderedResponseCache;
+    private final ViewCompilers viewCompilers;
+    private final ExportProperties exportProperties;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
@@ -36,21 +67,91 @@ public class OrderController {
         return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
     }
 
+    /**
+     * Принимает JSON-массив или NDJSON и читает его потоком: заказы передаются в сервис по мере разбора.
+     */
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<BatchItemResult>> createOrders(InputStream body) throws IOException {
+        try (MappingIterator<Order> orders = objectMapper.readerFor(Order.class).readValues(body)) {
+            return ResponseEntity.ok(orderService.createOrders(malformedAsBadRequest(orders)));
+        } catch (JsonProcessingException e) {
+            throw malformedBatch(e);
+        }
+    }
+
+    // ошибка разбора посреди потока — это 400, а исключение из сервиса откатывает уже вставленные порции
+    private static <T> Iterator<T> malformedAsBadRequest(MappingIterator<T> source) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return source.hasNextValue();
+                } catch (IOException e) {
+                    throw malformedBatch(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                try {
+                    return source.nextValue();
+                } catch (IOException e) {
+                    throw malformedBatch(e);
+                }
+            }
+        };
+    }
+
+    private static IllegalArgumentException malformedBatch(IOException e) {
+        String message = e instanceof JsonProcessingException jsonException
+                ? jsonException.getOriginalMessage()
+                : e.getMessage();
+        return new IllegalArgumentException("Malformed batch: " + message, e);
+    }
+
     @PutMapping(path = "/{orderId}")
     @PreAuthorize("hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
     @JsonView(Views.OrderSummary.class)
     public ResponseEntity<Order> updateOrder(@PathVariable Long orderId,
+                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                              @Valid @RequestBody Order order) {
-        Order updatedOrder = orderService.updateOrder(orderId, order);
-        return ResponseEntity.ok(updatedOrder);
+        OrderVersion expectedVersion = ConditionalRequests.expectedVersion(ifMatch, OrderVersion::parse,
+                () -> orderService.getOrderVersion(orderId).eTag());
+        Tagged<Order> updatedOrder = orderService.updateOrder(orderId, order, expectedVersion);
+        return ResponseEntity.ok()
+                .eTag(updatedOrder.eTag())
+                .body(updatedOrder.body());
+    }
+
+    @PatchMapping(path = "/status")
+    @PreAuthorize("hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<BulkUpdateResult> transitionStatus(@Valid @RequestBody OrderStatusTransition transition) {
+        return ResponseEntity.ok(new BulkUpdateResult(orderService.transitionStatus(transition)));
     }
 
-    @GetMapping(path = "/{orderId}")
+    @GetMapping(path = "/{orderId}", produces = {MediaType.APPLICATION_JSON_VALUE, WireFormat.SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE})
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
-    @JsonView(Views.OrderDetails.class)
-    public ResponseEntity<Order> getOrderById(@PathVariable Long orderId) {
-        Order order = orderService.getOrderById(orderId);
-        return ResponseEntity.ok(order);
+    public ResponseEntity<byte[]> getOrderById(@PathVariable Long orderId,
+                                               @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch,
+                                               @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                                               @RequestParam(required = false) String fields) {
+        WireFormat format = WireFormat.negotiate(accept);
+        SparseFields sparseFields = SparseFields.parse(fields);
+        if (sparseFields != null) {
+            // writer проверяет поля до обращения к базе
+            ObjectWriter writer = viewCompilers.forFormat(format)
+                    .writerFor(Order.class, Views.OrderDetails.class, sparseFields);
+            return ConditionalRequests.renderUncached(format, writer,
+                    () -> orderService.getOrderById(orderId, Views.OrderDetails.class, sparseFields));
+        }
+        return ConditionalRequests.render(format, ifNoneMatch,
+                renderedResponseCache.peekOrder(orderId, Views.OrderDetails.class, format),
+                () -> orderService.getOrderVersion(orderId).eTag(),
+                () -> renderedResponseCache.order(orderId, Views.OrderDetails.class, format,
+                        () -> orderService.getOrderById(orderId)));
     }
 
     @DeleteMapping(path = "/{orderId}")
@@ -60,11 +161,44 @@ public class OrderController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping(params = {"!after", "!limit"}, produces = {MediaType.APPLICATION_JSON_VALUE, WireFormat.SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE})
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> getAllOrders(
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(required = false) String fields) {
+        WireFormat format = WireFormat.negotiate(accept);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(streamingViewWriter.array(format, Order.class, Views.OrderSummary.class,
+                        SparseFields.parse(fields), orderService::streamAllOrders));
+    }
+
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(streamingViewWriter.lines(Order.class, Views.OrderSummary.class, exportProperties.chunkSize(),
+                        orderService::streamAllOrders));
+    }
+
+    @GetMapping(path = "/stats")
+    @PreAuthorize("hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<OrderStats> getStatistics(@RequestParam(required = false) Long userId) {
+        return ResponseEntity.ok(orderService.getStatistics(userId));
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
     @JsonView(Views.OrderSummary.class)
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<Order>> getOrdersPage(@RequestParam(required = false) String after,
+                                                     @RequestParam(defaultValue = "50") int limit) {
+        KeysetCursors.checkLimit(limit);
+        KeysetPage<Order> page = orderService.getOrdersPage(KeysetCursors.decode(after), limit);
+        return ResponseEntity.ok()
+                .headers(KeysetCursors.nextPageHeaders(page, limit))
+                .body(page.content());
     }
 }
@@ -2,9 +2,12 @@ package ru.javacode.springmvcjsonview.controller;
 
 
 import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,11 +16,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.javacode.springmvcjsonview.cache.RenderedResponseCache;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.LockState;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.dto.UserVersion;
 import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.security.FailedLoginTracker;
+import ru.javacode.springmvcjsonview.security.VerifiedTokenCache;
 import ru.javacode.springmvcjsonview.service.UserService;
+import ru.javacode.springmvcjsonview.view.SparseFields;
+import ru.javacode.springmvcjsonview.view.StreamingViewWriter;
+import ru.javacode.springmvcjsonview.view.ViewCompilers;
 import ru.javacode.springmvcjsonview.view.Views;
+import ru.javacode.springmvcjsonview.view.WireFormat;
 
 import java.util.List;
 import java.util.UUID;
@@ -27,6 +44,11 @@ import java.util.UUID;
 @AllArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final StreamingViewWriter streamingViewWriter;
+    private final RenderedResponseCache renderedResponseCache;
+    private final ViewCompilers viewCompilers;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final FailedLoginTracker failedLoginTracker;
 
     @PostMapping
     @PreAuthorize("hasRole('SUPER_ADMIN')")
@@ -40,17 +62,38 @@ public class UserController {
     @PreAuthorize("hasRole('SUPER_ADMIN')")
     @JsonView(Views.UserSummary.class)
     public ResponseEntity<User> updateUser(@PathVariable Long userId,
+                                           @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                            @Valid @RequestBody User user) {
-        User updatedUser = userService.updateUser(userId, user);
-        return ResponseEntity.ok(updatedUser);
+        UserVersion expectedVersion = ConditionalRequests.expectedVersion(ifMatch, UserVersion::parse,
+                () -> userService.getUserVersion(userId).eTag());
+        Tagged<User> updatedUser = userService.updateUser(userId, user, expectedVersion);
+        return ResponseEntity.ok()
+                .eTag(updatedUser.eTag())
+                .body(updatedUser.body());
     }
 
-    @GetMapping(path = "/{userId}")
+    @GetMapping(path = "/{userId}", produces = {MediaType.APPLICATION_JSON_VALUE, WireFormat.SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE})
     @PreAuthorize("hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
-    @JsonView(Views.UserDetails.class)
-    public ResponseEntity<User> getUserById(@PathVariable Long userId) {
-        User user = userService.getUserById(userId);
-        return ResponseEntity.ok(user);
+    public ResponseEntity<byte[]> getUserById(@PathVariable Long userId,
+                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch,
+                                              @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                                              @RequestParam(required = false) String fields) {
+        WireFormat format = WireFormat.negotiate(accept);
+        SparseFields sparseFields = SparseFields.parse(fields);
+        if (sparseFields != null) {
+            // writer проверяет поля до обращения к базе
+            ObjectWriter writer = viewCompilers.forFormat(format)
+                    .writerFor(User.class, Views.UserDetails.class, sparseFields);
+            return ConditionalRequests.renderUncached(format, writer,
+                    () -> userService.getUserById(userId, Views.UserDetails.class, sparseFields));
+        }
+        return ConditionalRequests.render(format, ifNoneMatch,
+                renderedResponseCache.peekUser(userId, Views.UserDetails.class, format),
+                () -> userService.getUserVersion(userId).eTag(),
+                () -> renderedResponseCache.user(userId, Views.UserDetails.class, format,
+                        () -> userService.getUserById(userId)));
     }
 
     @DeleteMapping(path = "/{userId}")
@@ -60,22 +103,42 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping(params = {"!after", "!limit"}, produces = {MediaType.APPLICATION_JSON_VALUE, WireFormat.SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE})
+    @PreAuthorize("hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(required = false) String fields) {
+        WireFormat format = WireFormat.negotiate(accept);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(streamingViewWriter.array(format, User.class, Views.UserSummary.class,
+                        SparseFields.parse(fields), userService::streamAllUsers));
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('MODERATOR') or hasRole('SUPER_ADMIN')")
     @JsonView(Views.UserSummary.class)
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<User>> getUsersPage(@RequestParam(required = false) String after,
+                                                   @RequestParam(defaultValue = "50") int limit) {
+        KeysetCursors.checkLimit(limit);
+        KeysetPage<User> page = userService.getUsersPage(KeysetCursors.decode(after), limit);
+        return ResponseEntity.ok()
+                .headers(KeysetCursors.nextPageHeaders(page, limit))
+                .body(page.content());
     }
 
     @PutMapping("/unlock/{userId}")
     @PreAuthorize("hasRole('SUPER_ADMIN')")
     public ResponseEntity<User> unlockUserAccount(@PathVariable Long userId) {
         User user = userService.getUserById(userId);
+        failedLoginTracker.reset(user);
+        userService.updateLockStates(List.of(LockState.unlocked(userId)));
         user.setAccountNonLocked(true);
         user.setFailedAttempts(0);
         user.setLockTime(null);
-        userService.updateUser(userId, user);
+        verifiedTokenCache.revoke(user.getUsername());
         return ResponseEntity.ok(user);
     }
 }
@@ -0,0 +1,4 @@
+package ru.javacode.springmvcjsonview.dto;
+
+public record BulkUpdateResult(int updated) {
+}
@@ -0,0 +1,14 @@
+package ru.javacode.springmvcjsonview.dto;
+
+import java.util.List;
+
+/**
+ * Страница keyset-пагинации: элементы и ключ, после которого начинается следующая страница
+ * ({@code null}, если страница последняя).
+ */
+public record KeysetPage<T>(List<T> content, Long nextKey) {
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+}
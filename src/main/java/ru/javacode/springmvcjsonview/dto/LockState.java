@@ -0,0 +1,15 @@
+package ru.javacode.springmvcjsonview.dto;
+
+/**
+ * Колонки блокировки пользователя, которые нужно записать.
+ */
+public record LockState(Long userId, Integer failedAttempts, boolean accountNonLocked, Long lockTime) {
+
+    public static LockState locked(Long userId, int failedAttempts, long lockTime) {
+        return new LockState(userId, failedAttempts, false, lockTime);
+    }
+
+    public static LockState unlocked(Long userId) {
+        return new LockState(userId, 0, true, null);
+    }
+}
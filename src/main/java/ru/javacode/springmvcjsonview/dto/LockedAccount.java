@@ -0,0 +1,7 @@
+package ru.javacode.springmvcjsonview.dto;
+
+/**
+ * Заблокированная учётная запись, по которой трекер неудачных входов восстанавливает состояние после рестарта.
+ */
+public record LockedAccount(String email, Long lockTime) {
+}
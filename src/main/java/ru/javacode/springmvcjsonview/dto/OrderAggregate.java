@@ -0,0 +1,27 @@
+package ru.javacode.springmvcjsonview.dto;
+
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Число заказов и их сумма для пары (владелец, статус); в событиях — приращение к этим значениям.
+ */
+public record OrderAggregate(Long userId, OrderStatus orderStatus, Long count, BigDecimal amount) {
+
+    public static OrderAggregate added(Long userId, OrderStatus orderStatus, BigDecimal amount) {
+        return new OrderAggregate(userId, orderStatus, 1L, amount);
+    }
+
+    public static OrderAggregate removed(Long userId, OrderStatus orderStatus, BigDecimal amount) {
+        return new OrderAggregate(userId, orderStatus, -1L, amount.negate());
+    }
+
+    public static OrderAggregate added(OrderAmount order) {
+        return added(order.userId(), order.orderStatus(), order.amount());
+    }
+
+    public static OrderAggregate removed(OrderAmount order) {
+        return removed(order.userId(), order.orderStatus(), order.amount());
+    }
+}
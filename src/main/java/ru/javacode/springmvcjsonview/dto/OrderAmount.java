@@ -0,0 +1,11 @@
+package ru.javacode.springmvcjsonview.dto;
+
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Поля заказа, от которых зависит статистика, прочитанные до изменения строки.
+ */
+public record OrderAmount(Long orderId, Long userId, OrderStatus orderStatus, BigDecimal amount) {
+}
@@ -0,0 +1,12 @@
+package ru.javacode.springmvcjsonview.dto;
+
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public record OrderStats(Map<OrderStatus, Totals> byStatus, Map<Long, Totals> byUser) {
+
+    public record Totals(long count, BigDecimal amount) {
+    }
+}
@@ -0,0 +1,32 @@
+package ru.javacode.springmvcjsonview.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+
+import java.util.List;
+
+/**
+ * Массовая смена статуса: заказы выбираются либо по id, либо по текущему статусу и владельцу.
+ */
+public record OrderStatusTransition(@Size(max = MAX_ORDER_IDS, message = "слишком много id заказов")
+                                    List<Long> orderIds,
+                                    OrderStatus currentStatus,
+                                    Long userId,
+                                    @NotNull(message = "не указан новый статус")
+                                    OrderStatus targetStatus) {
+
+    public static final int MAX_ORDER_IDS = 10_000;
+
+    public boolean byIds() {
+        return orderIds != null && !orderIds.isEmpty();
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "укажите либо orderIds, либо currentStatus и userId")
+    public boolean isFilterValid() {
+        return byIds() != (currentStatus != null && userId != null);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.javacode.springmvcjsonview.dto;
+
+import ru.javacode.springmvcjsonview.model.Order;
+
+/**
+ * Версия представления OrderDetails: версия заказа и версия владельца, чьи поля тоже входят в ответ.
+ * Читается проекцией без загрузки строк, поэтому If-None-Match проверяется дёшево.
+ */
+public record OrderVersion(Long userId, Long version, Long userVersion) {
+
+    public static OrderVersion of(Order order) {
+        return order.getUser() == null
+                ? new OrderVersion(null, order.getVersion(), null)
+                : new OrderVersion(order.getUser().getUserId(), order.getVersion(), order.getUser().getVersion());
+    }
+
+    /**
+     * @return версия из ETag или {@code null}, если тег выдан не этим сервисом
+     */
+    public static OrderVersion parse(String eTag) {
+        String[] parts = eTag.split("\\.");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new OrderVersion(null, Long.valueOf(parts[0]), Long.valueOf(parts[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String eTag() {
+        return version + "." + (userVersion == null ? 0L : userVersion);
+    }
+}
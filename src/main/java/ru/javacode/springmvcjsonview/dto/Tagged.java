@@ -0,0 +1,7 @@
+package ru.javacode.springmvcjsonview.dto;
+
+/**
+ * Значение вместе с ETag (без кавычек) представления ресурса, к которому оно относится.
+ */
+public record Tagged<T>(T body, String eTag) {
+}
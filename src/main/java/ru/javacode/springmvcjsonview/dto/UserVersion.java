@@ -0,0 +1,45 @@
+package ru.javacode.springmvcjsonview.dto;
+
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.User;
+
+/**
+ * Версия представления UserDetails: версия пользователя и свёртка по его заказам
+ * (количество, сумма версий, максимальный id), которая меняется при создании, изменении и удалении заказа.
+ */
+public record UserVersion(Long version, Long orderCount, Long orderVersionSum, Long lastOrderId) {
+
+    public static UserVersion of(User user) {
+        long count = 0;
+        long versionSum = 0;
+        long lastOrderId = 0;
+        if (user.getOrders() != null) {
+            for (Order order : user.getOrders()) {
+                count++;
+                versionSum += order.getVersion() == null ? 0L : order.getVersion();
+                lastOrderId = Math.max(lastOrderId, order.getOrderId());
+            }
+        }
+        return new UserVersion(user.getVersion(), count, versionSum, lastOrderId);
+    }
+
+    /**
+     * @return версия из ETag или {@code null}, если тег выдан не этим сервисом
+     */
+    public static UserVersion parse(String eTag) {
+        String[] parts = eTag.split("\\.");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new UserVersion(Long.valueOf(parts[0]), Long.valueOf(parts[1]),
+                    Long.valueOf(parts[2]), Long.valueOf(parts[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String eTag() {
+        return version + "." + orderCount + "." + orderVersionSum + "." + lastOrderId;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.javacode.springmvcjsonview.event;
+
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+
+import java.util.List;
+
+/**
+ * Приращения статистики заказов, которые применяются после коммита транзакции.
+ *
+ * @param resync {@code true}, если приращения посчитать не удалось и статистику нужно пересобрать из базы
+ */
+public record OrderAggregatesChangedEvent(List<OrderAggregate> deltas, boolean resync) {
+
+    public static OrderAggregatesChangedEvent of(List<OrderAggregate> deltas) {
+        return new OrderAggregatesChangedEvent(List.copyOf(deltas), false);
+    }
+
+    public static OrderAggregatesChangedEvent of(OrderAggregate... deltas) {
+        return new OrderAggregatesChangedEvent(List.of(deltas), false);
+    }
+
+    public static OrderAggregatesChangedEvent resyncRequired() {
+        return new OrderAggregatesChangedEvent(List.of(), true);
+    }
+}
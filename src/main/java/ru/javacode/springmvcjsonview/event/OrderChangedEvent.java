@@ -0,0 +1,10 @@
+package ru.javacode.springmvcjsonview.event;
+
+import ru.javacode.springmvcjsonview.model.Order;
+
+public record OrderChangedEvent(Long orderId, Long userId) {
+
+    public static OrderChangedEvent of(Order order) {
+        return new OrderChangedEvent(order.getOrderId(), order.getUser() == null ? null : order.getUser().getUserId());
+    }
+}
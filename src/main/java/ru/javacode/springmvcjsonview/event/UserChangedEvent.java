@@ -0,0 +1,4 @@
+package ru.javacode.springmvcjsonview.event;
+
+public record UserChangedEvent(Long userId) {
+}
@@ -0,0 +1,7 @@
+package ru.javacode.springmvcjsonview.event;
+
+/**
+ * Пользователь сменил email или пароль; {@code email} — адрес, на который выдавались прежние токены.
+ */
+public record UserCredentialsChangedEvent(String email) {
+}
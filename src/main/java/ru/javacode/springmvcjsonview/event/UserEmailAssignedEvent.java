@@ -0,0 +1,7 @@
+package ru.javacode.springmvcjsonview.event;
+
+/**
+ * Email стал принадлежать пользователю: он создан или сменил адрес.
+ */
+public record UserEmailAssignedEvent(String email) {
+}
@@ -0,0 +1,69 @@
+package ru.javacode.springmvcjsonview.migration;
+
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+import ru.javacode.springmvcjsonview.config.IdSequenceProperties;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Выделенные последовательности для id заказов и пользователей под оптимизатор pooled-lo.
+ * Значение последовательности — начало диапазона, который приложение раздаёт без обращений к базе.
+ * Последовательности начинаются после максимального id и после значения прежних {@code *_seq},
+ * чтобы не пересечься с диапазонами, уже выданными узлам на старой версии.
+ */
+@Component
+@RequiredArgsConstructor
+public class V3__PooledLoIdSequences extends BaseJavaMigration {
+
+    private final IdSequenceProperties properties;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        createSequence(connection, "orders_id_seq", "orders", "order_id", "orders_seq");
+        createSequence(connection, "users_id_seq", "users", "user_id", "users_seq");
+    }
+
+    private void createSequence(Connection connection, String sequence, String table, String idColumn,
+                                String legacySequence) throws SQLException {
+        long start = Math.max(queryLong(connection, "select coalesce(max(" + idColumn + "), 0) from " + table),
+                legacyValue(connection, legacySequence)) + 1;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create sequence " + sequence + " start with " + start
+                    + " increment by " + properties.allocationSize());
+        }
+    }
+
+    private static long legacyValue(Connection connection, String sequence) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                select count(*) from information_schema.sequences
+                where lower(sequence_name) = ? and lower(sequence_schema) = lower(current_schema)""")) {
+            statement.setString(1, sequence);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                if (resultSet.getLong(1) == 0) {
+                    return 0;
+                }
+            }
+        }
+        // следующее значение резервирует для нас диапазон прежнего pooled-генератора
+        return queryLong(connection, "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+                ? "select nextval('" + sequence + "')"
+                : "select next value for " + sequence);
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
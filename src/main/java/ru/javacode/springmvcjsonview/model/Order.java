@@ -1,6 +1,8 @@
 package ru.javacode.springmvcjsonview.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -12,12 +14,16 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.javacode.springmvcjsonview.view.Views;
 
 import java.math.BigDecimal;
@@ -25,14 +31,19 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "orders")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Order.CACHE_REGION)
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 @Builder
 public class Order {
 
+    public static final String CACHE_REGION = "order";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     @Column(name = "order_id", nullable = false)
     @JsonView({Views.OrderSummary.class, Views.UserDetails.class})
     private Long orderId;
@@ -54,4 +65,9 @@ public class Order {
     @NotNull(message = "не указан пользователь")
     private User user;
 
+    @Version
+    @Column(name = "order_version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
 }
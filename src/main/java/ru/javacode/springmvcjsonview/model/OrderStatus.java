@@ -1,8 +1,21 @@
 package ru.javacode.springmvcjsonview.model;
 
+import java.util.Set;
+
 public enum OrderStatus {
 
     PROCESSING,
     DELIVERY,
-    CANCELLED,
+    CANCELLED;
+
+    /**
+     * Статусы, из которых заказ может перейти в этот. В заказ в обработке вернуться нельзя.
+     */
+    public Set<OrderStatus> allowedSources() {
+        return switch (this) {
+            case PROCESSING -> Set.of();
+            case DELIVERY -> Set.of(PROCESSING);
+            case CANCELLED -> Set.of(PROCESSING, DELIVERY);
+        };
+    }
 }
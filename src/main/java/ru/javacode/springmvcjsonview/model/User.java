@@ -1,7 +1,9 @@
 package ru.javacode.springmvcjsonview.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -10,7 +12,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -18,6 +22,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -29,14 +37,21 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@DynamicUpdate
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 @Builder
 public class User implements UserDetails {
 
+    public static final String CACHE_REGION = "user";
+    public static final String ORDERS_CACHE_REGION = "user.orders";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     @Column(name = "user_id", nullable = false)
     @JsonView(Views.UserSummary.class)
     private Long userId;
@@ -53,6 +68,7 @@ public class User implements UserDetails {
     private String email;
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ORDERS_CACHE_REGION)
     @JsonView(Views.UserDetails.class)
     List<Order> orders;
 
@@ -63,15 +79,24 @@ public class User implements UserDetails {
     @Column(name = "user_role", nullable = false)
     private Role role;
 
+    // состояние блокировки не входит в представления и меняется без увеличения версии
     @Column(name = "is_account_non_locked", nullable = false)
+    @OptimisticLock(excluded = true)
     private boolean isAccountNonLocked = true;
 
     @Column(name = "failed_attempts")
+    @OptimisticLock(excluded = true)
     private Integer failedAttempts;
 
     @Column(name = "lock_time")
+    @OptimisticLock(excluded = true)
     private Long lockTime;
 
+    @Version
+    @Column(name = "user_version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     @Override
     public boolean isAccountNonExpired() {
         return UserDetails.super.isAccountNonExpired();
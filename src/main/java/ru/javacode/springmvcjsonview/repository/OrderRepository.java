@@ -1,11 +1,95 @@
 package ru.javacode.springmvcjsonview.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+import ru.javacode.springmvcjsonview.dto.OrderAmount;
+import ru.javacode.springmvcjsonview.dto.OrderVersion;
 import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    String STREAM_FETCH_SIZE = "500";
+
+    @EntityGraph("Order.OrderDetails")
+    Optional<Order> findOrderDetailsByOrderId(Long orderId);
+
+    @EntityGraph("Order.OrderSummary")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from Order o order by o.orderId")
+    Stream<Order> streamAll();
+
+    @EntityGraph("Order.OrderSummary")
+    List<Order> findByOrderIdGreaterThanOrderByOrderIdAsc(Long orderId, Limit limit);
+
+    @Query("""
+            select new ru.javacode.springmvcjsonview.dto.OrderVersion(u.userId, o.version, u.version)
+            from Order o left join o.user u
+            where o.orderId = :orderId""")
+    Optional<OrderVersion> findVersionByOrderId(Long orderId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new ru.javacode.springmvcjsonview.dto.OrderAmount(o.orderId, o.user.userId, o.orderStatus, o.amount)
+            from Order o
+            where o.orderId in :orderIds""")
+    List<OrderAmount> lockAmountsByOrderIds(Collection<Long> orderIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new ru.javacode.springmvcjsonview.dto.OrderAmount(o.orderId, o.user.userId, o.orderStatus, o.amount)
+            from Order o
+            where o.user.userId = :userId and o.orderStatus = :current and o.orderStatus in :sources""")
+    List<OrderAmount> lockAmountsByOwner(Long userId, OrderStatus current, Collection<OrderStatus> sources);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new ru.javacode.springmvcjsonview.dto.OrderAmount(o.orderId, o.user.userId, o.orderStatus, o.amount)
+            from Order o
+            where o.user.userId = :userId""")
+    List<OrderAmount> lockAmountsByUserId(Long userId);
+
+    @Query("""
+            select new ru.javacode.springmvcjsonview.dto.OrderAggregate(o.user.userId, o.orderStatus, count(o), sum(o.amount))
+            from Order o
+            group by o.user.userId, o.orderStatus""")
+    List<OrderAggregate> sumByOwnerAndStatus();
+
+    // Допустимость перехода проверяется в самом UPDATE: строки в других статусах просто не попадают под условие
+    // Массовый JPQL UPDATE сбрасывает весь регион order в кэше второго уровня и коллекции user.orders.
+    // Для пакетной смены статуса это дешевле, чем загружать и менять каждую сущность;
+    // одиночные изменения идут через управляемую сущность и вытесняют только её
+    @Modifying
+    @Query("""
+            update Order o
+            set o.orderStatus = :target, o.version = o.version + 1
+            where o.orderId in :orderIds and o.orderStatus in :sources""")
+    int updateStatusByOrderIds(Collection<Long> orderIds, Collection<OrderStatus> sources, OrderStatus target);
+
+    @Modifying
+    @Query("""
+            update Order o
+            set o.orderStatus = :target, o.version = o.version + 1
+            where o.user.userId = :userId and o.orderStatus = :current and o.orderStatus in :sources""")
+    int updateStatusByOwner(Long userId, OrderStatus current, Collection<OrderStatus> sources, OrderStatus target);
 }
@@ -1,14 +1,59 @@
 package ru.javacode.springmvcjsonview.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.javacode.springmvcjsonview.dto.LockedAccount;
+import ru.javacode.springmvcjsonview.dto.UserVersion;
 import ru.javacode.springmvcjsonview.model.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    String STREAM_FETCH_SIZE = "500";
+
     Optional<User> findByEmail(String email);
+
+    @Query("""
+            select new ru.javacode.springmvcjsonview.dto.LockedAccount(u.email, u.lockTime)
+            from User u
+            where u.isAccountNonLocked = false and u.lockTime > :since""")
+    List<LockedAccount> findLockedSince(long since);
+
+    @Query("select u.userId from User u where u.userId in :userIds")
+    Set<Long> findExistingIds(Collection<Long> userIds);
+
+    @EntityGraph("User.UserDetails")
+    Optional<User> findUserDetailsByUserId(Long userId);
+
+    @EntityGraph("User.UserSummary")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.userId")
+    Stream<User> streamAll();
+
+    @EntityGraph("User.UserSummary")
+    List<User> findByUserIdGreaterThanOrderByUserIdAsc(Long userId, Limit limit);
+
+    @Query("""
+            select new ru.javacode.springmvcjsonview.dto.UserVersion(
+                u.version, count(o), coalesce(sum(o.version), 0L), coalesce(max(o.orderId), 0L))
+            from User u left join u.orders o
+            where u.userId = :userId
+            group by u.userId, u.version""")
+    Optional<UserVersion> findVersionByUserId(Long userId);
 }
@@ -0,0 +1,129 @@
+package ru.javacode.springmvcjsonview.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.AttributeNode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Subgraph;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.graph.Graph;
+import org.hibernate.graph.RootGraph;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import ru.javacode.springmvcjsonview.view.SparseFields;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Для каждой пары (сущность, view) строит entity graph из тех ассоциаций, которые view
+ * сериализует, и регистрирует его под именем {@code <Entity>.<View>}, например
+ * {@code Order.OrderDetails}. Репозитории ссылаются на эти имена через {@code @EntityGraph}.
+ * Для {@code ?fields=} граф строится на лету и содержит только запрошенные ассоциации.
+ */
+@Component
+@RequiredArgsConstructor
+public class ViewEntityGraphs {
+
+    private final ViewCompiler viewCompiler;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public static String graphName(Class<?> type, Class<?> view) {
+        return type.getSimpleName() + "." + view.getSimpleName();
+    }
+
+    @PostConstruct
+    public void register() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+                Class<?> type = entity.getJavaType();
+                for (Class<?> view : viewCompiler.viewsOf(type)) {
+                    RootGraph<?> graph = session.createEntityGraph(type);
+                    addAssociations(graph, entity, view, null, new HashSet<>(Set.of(type)));
+                    entityManagerFactory.addNamedEntityGraph(graphName(type, view), graph);
+                }
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Граф для view, суженного набором полей: ассоциации, которые не запрошены, не загружаются.
+     */
+    public <T> RootGraph<T> graph(EntityManager entityManager, Class<T> type, Class<?> view, SparseFields fields) {
+        RootGraph<T> graph = entityManager.unwrap(Session.class).createEntityGraph(type);
+        addAssociations(graph, entityManagerFactory.getMetamodel().entity(type), view, fields,
+                new HashSet<>(Set.of(type)));
+        return graph;
+    }
+
+    /**
+     * Загружает ассоциации графа у уже найденной сущности. {@code find} отдаёт сущность из кэша
+     * второго уровня, не применяя fetch graph; закэшированные ассоциации при этом тоже берутся из кэша.
+     */
+    public void initialize(Object entity, List<? extends AttributeNode<?>> nodes) {
+        ManagedType<?> type = entityManagerFactory.getMetamodel().managedType(Hibernate.getClass(entity));
+        for (AttributeNode<?> node : nodes) {
+            Field field = (Field) type.getAttribute(node.getAttributeName()).getJavaMember();
+            ReflectionUtils.makeAccessible(field);
+            Object value = ReflectionUtils.getField(field, entity);
+            if (value == null) {
+                continue;
+            }
+            Hibernate.initialize(value);
+            for (Subgraph<?> subgraph : node.getSubgraphs().values()) {
+                if (value instanceof Collection<?> elements) {
+                    elements.forEach(element -> initialize(element, subgraph.getAttributeNodes()));
+                } else {
+                    initialize(Hibernate.unproxy(value), subgraph.getAttributeNodes());
+                }
+            }
+        }
+    }
+
+    private void addAssociations(Graph<?> graph, ManagedType<?> type, Class<?> view, SparseFields fields,
+                                 Set<Class<?>> path) {
+        for (String property : viewCompiler.propertiesOf(type.getJavaType(), view)) {
+            if (fields != null && !fields.includes(property)) {
+                continue;
+            }
+            Attribute<?, ?> attribute = findAttribute(type, property);
+            if (attribute == null || !attribute.isAssociation()) {
+                continue;
+            }
+            Class<?> target = attribute instanceof PluralAttribute<?, ?, ?> plural
+                    ? plural.getElementType().getJavaType()
+                    : attribute.getJavaType();
+            if (path.add(target)) {
+                addAssociations(graph.addSubGraph(property),
+                        entityManagerFactory.getMetamodel().managedType(target), view,
+                        fields == null ? null : fields.nested(property), path);
+                path.remove(target);
+            } else {
+                graph.addAttributeNode(property);
+            }
+        }
+    }
+
+    private static Attribute<?, ?> findAttribute(ManagedType<?> type, String name) {
+        for (Attribute<?, ?> attribute : type.getAttributes()) {
+            if (attribute.getName().equals(name)) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,204 @@
+package ru.javacode.springmvcjsonview.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.javacode.springmvcjsonview.config.BackgroundThreads;
+import ru.javacode.springmvcjsonview.config.LoginAttemptsProperties;
+import ru.javacode.springmvcjsonview.dto.LockState;
+import ru.javacode.springmvcjsonview.dto.LockedAccount;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.service.UserService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Неудачные входы по email в памяти: последние {@code maxAttempts} отметок времени на учётную запись
+ * и скользящее окно поверх них. Запись в базу только при блокировке и разблокировке, пачкой раз в
+ * {@code flushInterval}. Состояние одной учётной записи меняется под одним из {@link #STRIPES} замков;
+ * это {@link ReentrantLock}, а не {@code synchronized}, чтобы не закреплять виртуальный поток за несущим.
+ * После рестарта действующие блокировки восстанавливаются из {@code users.lock_time}, счётчики — нет.
+ */
+@Component
+public class FailedLoginTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailedLoginTracker.class);
+    private static final int STRIPES = 64;
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final int maxAttempts;
+    private final long windowMillis;
+    private final long lockDurationMillis;
+    private final Cache<String, Attempts> attempts;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    // последний несохранённый переход по пользователю: повторные переходы до записи схлопываются
+    private final Map<Long, LockState> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public FailedLoginTracker(UserRepository userRepository, UserService userService,
+                              LoginAttemptsProperties properties, BackgroundThreads backgroundThreads) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.maxAttempts = properties.maxAttempts();
+        this.windowMillis = properties.window().toMillis();
+        this.lockDurationMillis = properties.lockDuration().toMillis();
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterAccess(properties.window().compareTo(properties.lockDuration()) > 0
+                        ? properties.window() : properties.lockDuration())
+                .build();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(backgroundThreads.factory("login-attempts-flush-"));
+        long flushMillis = properties.flushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PostConstruct
+    void restore() {
+        long now = System.currentTimeMillis();
+        for (LockedAccount account : userRepository.findLockedSince(now - lockDurationMillis)) {
+            attempts.get(account.email(), email -> new Attempts(maxAttempts)).lockedAt = account.lockTime();
+        }
+    }
+
+    /**
+     * Заблокирована ли учётная запись: по памяти, а если там ничего нет — по колонкам пользователя.
+     * Истёкшая блокировка не действует, даже если в базе ещё не снята.
+     */
+    public boolean isLocked(User user, long now) {
+        Attempts state = attempts.getIfPresent(user.getEmail());
+        long lockedAt = state != null ? state.lockedAt : 0;
+        if (lockedAt == 0 && !user.isAccountNonLocked()) {
+            if (user.getLockTime() == null) {
+                return true;
+            }
+            lockedAt = user.getLockTime();
+        }
+        return lockedAt != 0 && now - lockedAt < lockDurationMillis;
+    }
+
+    /**
+     * @return {@code true}, если эта попытка заблокировала учётную запись
+     */
+    public boolean recordFailure(User user, long now) {
+        ReentrantLock lock = lockFor(user.getEmail());
+        lock.lock();
+        try {
+            Attempts state = attempts.get(user.getEmail(), email -> new Attempts(maxAttempts));
+            state.failures[state.next] = now;
+            state.next = (state.next + 1) % maxAttempts;
+            // после сдвига next указывает на самую старую из последних maxAttempts попыток
+            long oldest = state.failures[state.next];
+            if (oldest == 0 || now - oldest >= windowMillis) {
+                return false;
+            }
+            Arrays.fill(state.failures, 0);
+            state.lockedAt = now;
+            pending.put(user.getUserId(), LockState.locked(user.getUserId(), maxAttempts, now));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает счётчик после успешного входа; снятие блокировки пишется, только если в базе она ещё есть.
+     */
+    public void recordSuccess(User user) {
+        ReentrantLock lock = lockFor(user.getEmail());
+        lock.lock();
+        try {
+            attempts.invalidate(user.getEmail());
+            boolean persistedLock = !user.isAccountNonLocked() || user.getLockTime() != null
+                    || (user.getFailedAttempts() != null && user.getFailedAttempts() != 0);
+            if (persistedLock) {
+                pending.put(user.getUserId(), LockState.unlocked(user.getUserId()));
+            } else {
+                pending.remove(user.getUserId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ручная разблокировка: забывает попытки и отменяет ещё не записанную блокировку.
+     */
+    public void reset(User user) {
+        ReentrantLock lock = lockFor(user.getEmail());
+        lock.lock();
+        try {
+            attempts.invalidate(user.getEmail());
+            pending.remove(user.getUserId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Записывает накопленные переходы одной транзакцией.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<LockState> batch = new ArrayList<>(pending.size());
+        for (LockState state : pending.values()) {
+            // снимаем только то, что прочитали: переход, пришедший во время записи, уйдёт следующей пачкой
+            if (pending.remove(state.userId(), state)) {
+                batch.add(state);
+            }
+        }
+        try {
+            userService.updateLockStates(batch);
+        } catch (RuntimeException e) {
+            batch.forEach(state -> pending.putIfAbsent(state.userId(), state));
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось записать состояние блокировок, повтор при следующей записи", e);
+        }
+    }
+
+    private ReentrantLock lockFor(String email) {
+        return locks[email.hashCode() & (STRIPES - 1)];
+    }
+
+    private static final class Attempts {
+
+        final long[] failures;
+        int next;
+        volatile long lockedAt;
+
+        Attempts(int maxAttempts) {
+            this.failures = new long[maxAttempts];
+        }
+    }
+}
@@ -1,84 +1,117 @@
 package ru.javacode.springmvcjsonview.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import ru.javacode.springmvcjsonview.config.JwtProperties;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 @Component
 public class JWTUtils {
 
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_ID_CLAIM = "uid";
+
     private final SecretKey key;
-    private  static final long EXPIRATION_TIME = 86400000; //24hours or 86400000 milisecs
+    // парсер неизменяем после build() и потокобезопасен, поэтому один на все запросы
+    private final JwtParser parser;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+
+    public JWTUtils() {
+        this(new JwtProperties(Duration.ofHours(24), Duration.ofHours(24), false));
+    }
 
-    public JWTUtils(){
+    @Autowired
+    public JWTUtils(JwtProperties properties){
         String secreteString = "843567893696976453275974432697R634976R738467TR678T34865R6834R8763T4783786376645387456" +
                 "73865783678548735687R3";
         byte[] keyBytes = Base64.getDecoder().decode(secreteString.getBytes(StandardCharsets.UTF_8));
         this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.accessTokenTtl = properties.accessTokenTtl();
+        this.refreshTokenTtl = properties.refreshTokenTtl();
     }
 
     public String generateToken(UserDetails userDetails) {
+        // iat и exp — стандартные claims, а роли — только имена authorities;
+        // id пользователя и роли позволяют собрать TokenPrincipal без чтения users
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities());
-        claims.put("issuedAt", new Date());
-        claims.put("expiration", new Date(System.currentTimeMillis() + EXPIRATION_TIME));
-        return createToken(claims, userDetails.getUsername());
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        if (userDetails instanceof User user && user.getUserId() != null) {
+            claims.put(USER_ID_CLAIM, user.getUserId());
+        }
+        return createToken(claims, userDetails.getUsername(), accessTokenTtl);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, Duration ttl) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + JWTUtils.EXPIRATION_TIME))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttl.toMillis()))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
-    }
-
-    public String extractUsername(String token) {
-        return extractClaims(token, Claims::getSubject);
-    }
-
-    public Date extractExpiration(String token) {
-        return extractClaims(token, Claims::getExpiration);
+        return createToken(Map.of(), userDetails.getUsername(), refreshTokenTtl);
     }
 
-    // Метод для извлечения имени пользователя из токена
-    private <T> T extractClaims(String token, Function<Claims, T> claimsResolver){
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token){
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Разбирает токен и проверяет подпись и срок действия за один проход.
+     *
+     * @throws io.jsonwebtoken.ExpiredJwtException если срок действия истёк
+     * @throws JwtException                        если токен повреждён или подпись не сходится
+     */
+    public TokenClaims verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.get(USER_ID_CLAIM) instanceof Number userId ? userId.longValue() : null,
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                roles(claims));
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * Срок действия уже проверен в {@link #verify(String)}; остаётся сверить владельца.
+     */
+    public boolean isTokenValid(TokenClaims claims, UserDetails userDetails) {
+        return claims.subject() != null && claims.subject().equals(userDetails.getUsername());
     }
 
-    private boolean isTokenExpired(String token){
-        return extractClaims(token, Claims::getExpiration).before(new Date());
+    private static List<String> roles(Claims claims) {
+        if (!(claims.get(ROLES_CLAIM) instanceof Collection<?> roles)) {
+            return List.of();
+        }
+        // токены, выданные до смены формата, содержат роли объектами {"authority": ...}
+        return roles.stream()
+                .map(role -> role instanceof Map<?, ?> authority ? authority.get("authority") : role)
+                .map(String::valueOf)
+                .toList();
     }
 }
@@ -0,0 +1,55 @@
+package ru.javacode.springmvcjsonview.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пользователь запроса, собранный из проверенного access-токена, без загрузки сущности {@code User}.
+ * Списки authorities общие для всех principal с одной ролью.
+ */
+public record TokenPrincipal(Long userId, String email, Role role) implements AuthenticatedPrincipal {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final Map<Role, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
+
+    static {
+        for (Role role : Role.values()) {
+            AUTHORITIES.put(role, List.of(new SimpleGrantedAuthority(ROLE_PREFIX + role.name())));
+        }
+    }
+
+    /**
+     * @return {@code null}, если в токене нет id пользователя или ровно одной известной роли
+     */
+    public static TokenPrincipal of(TokenClaims claims) {
+        if (claims.userId() == null || claims.subject() == null || claims.roles().size() != 1) {
+            return null;
+        }
+        String authority = claims.roles().get(0);
+        if (!authority.startsWith(ROLE_PREFIX)) {
+            return null;
+        }
+        try {
+            return new TokenPrincipal(claims.userId(), claims.subject(),
+                    Role.valueOf(authority.substring(ROLE_PREFIX.length())));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return AUTHORITIES.get(role);
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.javacode.springmvcjsonview.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.javacode.springmvcjsonview.config.UserLookupCacheProperties;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserEmailAssignedEvent;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Поиск пользователя по email через кэш email → id. Сам пользователь читается по id и приходит
+ * из кэша второго уровня, поэтому состояние учётной записи (пароль, блокировка) всегда актуально,
+ * а каждый вызов получает свой экземпляр. Неизвестные email тоже кэшируются, на более короткий срок.
+ */
+@Component
+public class UserLookupCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Lookup> cache;
+
+    public UserLookupCache(UserRepository userRepository, UserLookupCacheProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        if (!properties.enabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new ByLookupResult(properties.ttl().toNanos(), properties.negativeTtl().toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-lookups");
+    }
+
+    public Optional<User> findByEmail(String email) {
+        if (cache == null || email == null) {
+            return userRepository.findByEmail(email);
+        }
+        Lookup lookup = cache.get(email, key -> new Lookup(userRepository.findByEmail(key)
+                .map(User::getUserId)
+                .orElse(null)));
+        if (lookup.userId() == null) {
+            return Optional.empty();
+        }
+        Optional<User> user = userRepository.findById(lookup.userId())
+                .filter(found -> email.equals(found.getEmail()));
+        if (user.isEmpty()) {
+            // пользователь удалён или сменил email, а событие ещё не дошло
+            cache.invalidate(email);
+            return userRepository.findByEmail(email);
+        }
+        return user;
+    }
+
+    // updateUser и deleteUser, в том числе обновления счётчика неудачных входов
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (cache != null) {
+            cache.asMap().values().removeIf(lookup -> Objects.equals(lookup.userId(), event.userId()));
+        }
+    }
+
+    // снимает отрицательную запись; загрузка, начатая до коммита, завершится раньше удаления
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailAssigned(UserEmailAssignedEvent event) {
+        if (cache != null && event.email() != null) {
+            cache.invalidate(event.email());
+        }
+    }
+
+    private record Lookup(Long userId) {
+    }
+
+    private record ByLookupResult(long ttlNanos, long negativeTtlNanos) implements Expiry<String, Lookup> {
+
+        @Override
+        public long expireAfterCreate(String email, Lookup lookup, long currentTime) {
+            return lookup.userId() == null ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String email, Lookup lookup, long currentTime, long currentDuration) {
+            return expireAfterCreate(email, lookup, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String email, Lookup lookup, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ru.javacode.springmvcjsonview.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.javacode.springmvcjsonview.config.JwtProperties;
+import ru.javacode.springmvcjsonview.config.TokenCacheProperties;
+import ru.javacode.springmvcjsonview.event.UserCredentialsChangedEvent;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Claims уже проверенных access-токенов, ключ — SHA-256 от строки токена, сам токен не хранится.
+ * Запись живёт до истечения срока токена или до вытеснения по размеру; чтение не берёт блокировок.
+ * {@link #revoke(String)} сразу убирает записи пользователя, и токен снова проходит полную проверку.
+ * Отзывы помнятся в течение срока жизни access-токена и отдельно от кэша: по ним
+ * {@link #isRevoked(TokenClaims)} отклоняет токены, выданные до блокировки.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JWTUtils jwtUtils;
+    private final Duration accessTokenTtl;
+    private final Cache<TokenKey, Entry> cache;
+    // последний отзыв по пользователю: запись, проверка которой началась раньше, не используется
+    private final Map<String, Revocation> revocations = new ConcurrentHashMap<>();
+    private final AtomicLong revocationSequence = new AtomicLong();
+
+    public VerifiedTokenCache(JWTUtils jwtUtils, JwtProperties jwtProperties, TokenCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.jwtUtils = jwtUtils;
+        this.accessTokenTtl = jwtProperties.accessTokenTtl();
+        if (!properties.enabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verified-tokens");
+    }
+
+    /**
+     * То же, что {@link JWTUtils#verify(String)}, но повторная проверка того же токена берётся из кэша.
+     */
+    public TokenClaims verify(String token) {
+        if (cache == null) {
+            return jwtUtils.verify(token);
+        }
+        TokenKey key = TokenKey.of(token);
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null && !isRevoked(cached)) {
+            return cached.claims();
+        }
+        long sequence = revocationSequence.get();
+        TokenClaims claims = jwtUtils.verify(token);
+        if (claims.expiration() != null) {
+            cache.put(key, new Entry(claims, sequence));
+        }
+        return claims;
+    }
+
+    /**
+     * Убирает из кэша все токены пользователя; вызывается при блокировке и разблокировке учётной записи,
+     * её удалении и смене email или пароля.
+     */
+    public void revoke(String username) {
+        if (username == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        // старше срока жизни access-токена отзыв уже ничего не отклоняет
+        revocations.values().removeIf(revocation -> revocation.at().plus(accessTokenTtl).isBefore(now));
+        revocations.put(username, new Revocation(revocationSequence.incrementAndGet(), now));
+        if (cache != null) {
+            // отзыв редок, поэтому проход по ограниченному кэшу дешевле отдельного индекса по пользователям
+            cache.asMap().values().removeIf(entry -> username.equals(entry.claims().subject()));
+        }
+    }
+
+    // смена email или пароля: токены, выданные до неё, отклоняются сразу, а не по истечении срока
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        revoke(event.email());
+    }
+
+    /**
+     * Выдан ли токен до последнего отзыва его пользователя. {@code iat} хранится с точностью до секунды,
+     * поэтому токен, выданный в ту же секунду, что и отзыв, считается действующим.
+     */
+    public boolean isRevoked(TokenClaims claims) {
+        Revocation revocation = revocations.get(claims.subject());
+        if (revocation == null) {
+            return false;
+        }
+        return claims.issuedAt() == null
+                || claims.issuedAt().getEpochSecond() < revocation.at().getEpochSecond();
+    }
+
+    private boolean isRevoked(Entry entry) {
+        Revocation revocation = revocations.get(entry.claims().subject());
+        return revocation != null && revocation.sequence() > entry.sequence();
+    }
+
+    private record Entry(TokenClaims claims, long sequence) {
+    }
+
+    private record Revocation(long sequence, Instant at) {
+    }
+
+    private record TokenKey(long h0, long h1, long h2, long h3) {
+
+        static TokenKey of(String token) {
+            try {
+                ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                        .digest(token.getBytes(StandardCharsets.US_ASCII)));
+                return new TokenKey(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class UntilTokenExpires implements Expiry<TokenKey, Entry> {
+
+        @Override
+        public long expireAfterCreate(TokenKey key, Entry entry, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), entry.claims().expiration()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenKey key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenKey key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
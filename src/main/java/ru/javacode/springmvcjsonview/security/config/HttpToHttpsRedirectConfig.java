@@ -1,31 +1,38 @@
 package ru.javacode.springmvcjsonview.security.config;
 
 import org.apache.catalina.connector.Connector;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 @Configuration
 public class HttpToHttpsRedirectConfig {
 
     @Bean
-    public ServletWebServerFactory servletContainer() {
+    public ServletWebServerFactory servletContainer(Environment environment) {
         TomcatServletWebServerFactory tomcat = new TomcatServletWebServerFactory() {
             @Override
             protected void postProcessContext(org.apache.catalina.Context context) {
             }
         };
-        tomcat.addAdditionalTomcatConnectors(redirectConnector());
+        tomcat.addAdditionalTomcatConnectors(redirectConnector(Threading.VIRTUAL.isActive(environment)));
         return tomcat;
     }
 
-    private Connector redirectConnector() {
+    private Connector redirectConnector(boolean virtualThreads) {
         Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
         connector.setScheme("http");
         connector.setPort(8080);
         connector.setSecure(false);
         connector.setRedirectPort(8443);
+        if (virtualThreads) {
+            // настройка spring.threads.virtual.enabled применяется только к основному коннектору
+            connector.getProtocolHandler().setExecutor(new VirtualThreadExecutor("tomcat-redirect-"));
+        }
         return connector;
     }
 }
@@ -1,5 +1,7 @@
 package ru.javacode.springmvcjsonview.security.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,8 +12,10 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import ru.javacode.springmvcjsonview.config.PasswordHashingProperties;
+import ru.javacode.springmvcjsonview.security.BoundedPasswordEncoder;
 import ru.javacode.springmvcjsonview.security.filter.JwtAuthenticationFilter;
-import ru.javacode.springmvcjsonview.security.filter.LoggingFilter;
+import ru.javacode.springmvcjsonview.security.filter.AccessLogFilter;
 import ru.javacode.springmvcjsonview.security.service.OurUserDetailedService;
 
 import org.springframework.security.authentication.*;
@@ -26,40 +30,47 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @AllArgsConstructor
 public class SecurityConfig {
 
+    // стоимость BCrypt; её же использует бенчмарк PasswordEncoderBenchmark
+    public static final int BCRYPT_STRENGTH = 10;
+
     private final OurUserDetailedService ourUserDetailedService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
-    private final LoggingFilter loggingFilter;
+    private final AccessLogFilter accessLogFilter;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity,
+                                                   AuthenticationProvider authenticationProvider) throws Exception {
         httpSecurity
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // потоковые ответы завершаются async-диспетчеризацией, доступ уже проверен на исходном запросе
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/api/v1/orders/**").authenticated()
                         .requestMatchers("/api/v1/users/**").authenticated()
                         .anyRequest().authenticated()
                 )
                 .userDetailsService(ourUserDetailedService)
-                .authenticationProvider(authenticationProvider())
-                .addFilterBefore(loggingFilter, UsernamePasswordAuthenticationFilter.class)
+                .authenticationProvider(authenticationProvider)
+                .addFilterBefore(accessLogFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return httpSecurity.build();
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(ourUserDetailedService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        // BCrypt идёт на собственном ограниченном пуле и не занимает CPU потоков Tomcat сверх доли из настроек
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(BCRYPT_STRENGTH), properties, meterRegistry);
     }
 
     @Bean
@@ -6,20 +6,18 @@ import io.jsonwebtoken.JwtException;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.security.FailedLoginTracker;
 import ru.javacode.springmvcjsonview.security.JWTUtils;
+import ru.javacode.springmvcjsonview.security.VerifiedTokenCache;
 import ru.javacode.springmvcjsonview.security.dto.AuthRequest;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
 import ru.javacode.springmvcjsonview.security.service.OurUserDetailedService;
-import ru.javacode.springmvcjsonview.service.UserService;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -30,64 +28,44 @@ import java.util.Map;
 @AllArgsConstructor
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
     private final JWTUtils jwtUtils;
-    private final UserService userService;
+    private final FailedLoginTracker failedLoginTracker;
     private final OurUserDetailedService userDetailsService;
+    private final PasswordEncoder passwordEncoder;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@RequestBody AuthRequest authRequest) {
-        try {
-            User user = userDetailsService.loadUserByUsername(authRequest.getUsername());
+        // одно чтение пользователя и одна проверка BCrypt; неудачные попытки считаются в памяти,
+        // а в базу попадают только блокировка и её снятие
+        User user = userDetailsService.loadUserByUsername(authRequest.getUsername());
+        long now = System.currentTimeMillis();
 
-            userDetailsService.unlockWhenTimeExpired(user);
+        if (failedLoginTracker.isLocked(user, now)) {
+            return ResponseEntity.status(HttpStatus.LOCKED).body("Превышен лимит попыток входа. Попробуйте позже");
+        }
 
-            if (!user.isAccountNonLocked()) {
-                return ResponseEntity.status(HttpStatus.LOCKED).body("Превышен лимит попыток входа. Попробуйте позже");
+        if (authRequest.getPassword() == null
+                || !passwordEncoder.matches(authRequest.getPassword(), user.getPassword())) {
+            if (failedLoginTracker.recordFailure(user, now)) {
+                verifiedTokenCache.revoke(user.getUsername());
             }
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Неверные пользователь или пароль");
+        }
 
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            authRequest.getUsername(),
-                            authRequest.getPassword()
-                    )
-            );
-
-            user.setFailedAttempts(0);
-            user.setAccountNonLocked(true);
-            user.setLockTime(null);
-            userService.updateUser(user.getUserId(), user);
-
-
-
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String jwt = jwtUtils.generateToken(userDetails);
-            String refreshToken = jwtUtils.generateRefreshToken(userDetails);
-            Date expirationDate = jwtUtils.extractExpiration(jwt);
-
-
+        failedLoginTracker.recordSuccess(user);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("jwt", jwt);
-            response.put("refreshToken", refreshToken);
-            response.put("expiration", expirationDate);
-            response.put("role", userDetails.getAuthorities());
+        String jwt = jwtUtils.generateToken(user);
+        String refreshToken = jwtUtils.generateRefreshToken(user);
+        Date expirationDate = Date.from(jwtUtils.verify(jwt).expiration());
 
-            return ResponseEntity.ok(response);
+        Map<String, Object> response = new HashMap<>();
+        response.put("jwt", jwt);
+        response.put("refreshToken", refreshToken);
+        response.put("expiration", expirationDate);
+        response.put("role", user.getAuthorities());
 
-        } catch (BadCredentialsException e) {
-            User user = userDetailsService.loadUserByUsername(authRequest.getUsername());
-            if (user != null) {
-                int attempts = (user.getFailedAttempts() != null) ? user.getFailedAttempts() + 1 : 1;
-                user.setFailedAttempts(attempts);
-                if (attempts >= 5) {
-                    user.setAccountNonLocked(false);
-                    user.setLockTime(System.currentTimeMillis());
-                }
-                userService.updateUser(user.getUserId(), user);
-            }
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Неверные пользователь или пароль");
-        }
+        return ResponseEntity.ok(response);
     }
 
     @PostMapping("/refresh")
@@ -98,9 +76,13 @@ public class AuthController {
         }
 
         try {
-            String username = jwtUtils.extractUsername(refreshToken);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtils.isTokenValid(refreshToken, userDetails)) {
+            TokenClaims claims = jwtUtils.verify(refreshToken);
+            User userDetails = userDetailsService.loadUserByUsername(claims.subject());
+            if (failedLoginTracker.isLocked(userDetails, System.currentTimeMillis())) {
+                // иначе заблокированный пользователь обходил бы блокировку, обновляя короткий access-токен
+                return ResponseEntity.status(HttpStatus.LOCKED).body("Учётная запись заблокирована");
+            }
+            if (jwtUtils.isTokenValid(claims, userDetails)) {
                 String newJwt = jwtUtils.generateToken(userDetails);
                 Map<String, String> tokens = new HashMap<>();
                 tokens.put("jwt", newJwt);
@@ -0,0 +1,17 @@
+package ru.javacode.springmvcjsonview.security.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Проверенные подпись и срок действия токена и те его claims, которые нужны приложению.
+ *
+ * @param userId id пользователя; нет в refresh-токенах и в токенах, выданных до его появления
+ * @param roles имена authorities, например {@code ROLE_USER}; у refresh-токена пусто
+ */
+public record TokenClaims(String subject, Long userId, Instant issuedAt, Instant expiration, List<String> roles) {
+
+    public TokenClaims {
+        roles = List.copyOf(roles);
+    }
+}
@@ -0,0 +1,207 @@
+package ru.javacode.springmvcjsonview.security.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.javacode.springmvcjsonview.accesslog.AccessLog;
+import ru.javacode.springmvcjsonview.accesslog.AccessLogRecord;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.security.TokenPrincipal;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Одна запись {@link AccessLog} на запрос. Стоит в цепочке безопасности перед проверкой JWT, поэтому
+ * видит и отказы в доступе, и аутентификацию до её очистки. Потоковые ответы записываются по завершении
+ * async-обработки, когда известны итоговые статус, размер и время.
+ */
+@Component
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLog accessLog;
+
+    public AccessLogFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !accessLog.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        CountingResponseWrapper counting = new CountingResponseWrapper(response);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, counting);
+            failed = false;
+        } finally {
+            String principal = principal();
+            if (failed) {
+                // исключение дойдёт до контейнера, а статус в ответе ещё прежний
+                accessLog.offer(new AccessLogRecord(request.getMethod(), route(request),
+                        HttpServletResponse.SC_INTERNAL_SERVER_ERROR, (System.nanoTime() - start) / 1_000,
+                        counting.bytes, principal));
+            } else if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, counting, start, principal);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, counting, start, principal);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, CountingResponseWrapper response, long start, String principal) {
+        String route = route(request);
+        int status = response.getStatus();
+        if (accessLog.sample(route, status)) {
+            accessLog.offer(new AccessLogRecord(request.getMethod(), route, status,
+                    (System.nanoTime() - start) / 1_000, response.bytes, principal));
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof TokenPrincipal tokenPrincipal
+                && tokenPrincipal.userId() != null) {
+            return tokenPrincipal.userId().toString();
+        }
+        if (authentication.getPrincipal() instanceof User user && user.getUserId() != null) {
+            return user.getUserId().toString();
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Считает байты тела, не копируя их.
+     */
+    private static class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+        // пишется одним потоком за раз: сначала обработчиком, потом async-диспетчеризацией
+        private volatile long bytes;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            bytes = 0;
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            bytes = 0;
+            super.reset();
+        }
+
+        private class CountingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            CountingOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+                bytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+                bytes += len;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ru.javacode.springmvcjsonview.security.filter;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,7 +16,12 @@ import java.io.IOException;
 
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.core.userdetails.UserDetails;
+import ru.javacode.springmvcjsonview.config.JwtProperties;
+import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
 import ru.javacode.springmvcjsonview.security.JWTUtils;
+import ru.javacode.springmvcjsonview.security.TokenPrincipal;
+import ru.javacode.springmvcjsonview.security.VerifiedTokenCache;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
 import ru.javacode.springmvcjsonview.security.service.OurUserDetailedService;
 
 @Component
@@ -23,7 +29,9 @@ import ru.javacode.springmvcjsonview.security.service.OurUserDetailedService;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JWTUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final OurUserDetailedService ourUserDetailedService;
+    private final JwtProperties jwtProperties;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -34,7 +42,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
 
         final String jwtToken;
-        final String username;
+        final TokenClaims claims;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,16 +50,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwtToken = authHeader.substring(7);
-        username = jwtUtils.extractUsername(jwtToken);
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = ourUserDetailedService.loadUserByUsername(username);
+        try {
+            // подпись и срок проверяются один раз, дальше используются только прочитанные claims
+            claims = verifiedTokenCache.verify(jwtToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            // запрос идёт дальше неаутентифицированным и отклоняется правилами доступа
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-            if (jwtUtils.isTokenValid(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(userDetails,
-                                null,
-                                userDetails.getAuthorities());
+        // refresh-токен и любой другой токен без ролей не годится для доступа к API
+        if (claims.subject() != null && !claims.roles().isEmpty()
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authToken = jwtProperties.claimsOnly() && claims.userId() != null
+                    ? claimsAuthentication(claims)
+                    : databaseAuthentication(claims);
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource()
                         .buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -59,4 +73,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // без обращения к users: блокировка доходит сюда через отзыв, остальные изменения — с истечением токена
+    private UsernamePasswordAuthenticationToken claimsAuthentication(TokenClaims claims) {
+        TokenPrincipal principal = TokenPrincipal.of(claims);
+        if (principal == null || verifiedTokenCache.isRevoked(claims)) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+    }
+
+    // отзыв проверяется и здесь: учётная запись могла быть заблокирована и снова разблокирована
+    private UsernamePasswordAuthenticationToken databaseAuthentication(TokenClaims claims) {
+        if (verifiedTokenCache.isRevoked(claims)) {
+            return null;
+        }
+        UserDetails userDetails;
+        try {
+            userDetails = ourUserDetailedService.loadUserByUsername(claims.subject());
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+        if (!jwtUtils.isTokenValid(claims, userDetails) || !userDetails.isAccountNonLocked()) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
 }
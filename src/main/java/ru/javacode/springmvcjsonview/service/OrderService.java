@@ -1,19 +1,62 @@
 package ru.javacode.springmvcjsonview.service;
 
+import ru.javacode.springmvcjsonview.dto.BatchItemResult;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.OrderStats;
+import ru.javacode.springmvcjsonview.dto.OrderStatusTransition;
+import ru.javacode.springmvcjsonview.dto.OrderVersion;
+import ru.javacode.springmvcjsonview.dto.Tagged;
 import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.view.SparseFields;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface OrderService {
 
     Order createOrder(Order order);
 
-    Order updateOrder(Long orderId, Order order);
+    /**
+     * Проверяет и вставляет заказы порциями, не держа в памяти весь вход.
+     * Некорректные элементы пропускаются и возвращаются с причиной отказа.
+     */
+    List<BatchItemResult> createOrders(Iterator<Order> orders);
+
+    /**
+     * @param expectedVersion версия из If-Match или {@code null}, если обновление безусловное
+     */
+    Tagged<Order> updateOrder(Long orderId, Order order, OrderVersion expectedVersion);
+
+    /**
+     * Меняет статус выбранных заказов одним UPDATE; заказы, для которых переход недопустим, не меняются.
+     *
+     * @return число изменённых заказов
+     */
+    int transitionStatus(OrderStatusTransition transition);
 
     Order getOrderById(Long orderId);
 
+    /**
+     * Загружает только ассоциации, которые видны в view и запрошены в {@code fields}.
+     */
+    Order getOrderById(Long orderId, Class<?> view, SparseFields fields);
+
+    OrderVersion getOrderVersion(Long orderId);
+
     void deleteOrder(Long orderId);
 
     List<Order> getAllOrders();
+
+    /**
+     * Итоги по статусам и владельцам из поддерживаемых в памяти счётчиков, без запроса к базе.
+     *
+     * @param userId владелец, по которому нужны итоги, или {@code null} — тогда по всем владельцам
+     */
+    OrderStats getStatistics(Long userId);
+
+    void streamAllOrders(Consumer<Order> action);
+
+    KeysetPage<Order> getOrdersPage(Long afterOrderId, int limit);
 }
@@ -1,14 +1,52 @@
 package ru.javacode.springmvcjsonview.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.graph.RootGraph;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.javacode.springmvcjsonview.config.BatchProperties;
+import ru.javacode.springmvcjsonview.dto.BatchItemResult;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+import ru.javacode.springmvcjsonview.dto.OrderAmount;
+import ru.javacode.springmvcjsonview.dto.OrderStats;
+import ru.javacode.springmvcjsonview.dto.OrderStatusTransition;
+import ru.javacode.springmvcjsonview.dto.OrderVersion;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.event.OrderAggregatesChangedEvent;
+import ru.javacode.springmvcjsonview.event.OrderChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.exception.PreconditionFailedException;
 import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
 import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.User;
 import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.repository.ViewEntityGraphs;
+import ru.javacode.springmvcjsonview.stats.OrderStatistics;
+import ru.javacode.springmvcjsonview.view.SparseFields;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Transactional
 @Service
@@ -16,30 +54,234 @@ import java.util.UUID;
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ViewEntityGraphs viewEntityGraphs;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final BatchProperties batchProperties;
+    private final OrderStatistics orderStatistics;
 
     @Override
     public Order createOrder(Order order) {
-        return orderRepository.save(order);
+        if (order.getUser() != null && order.getUser().getUserId() != null) {
+            // в теле приходит только id владельца; ссылка не читает пользователя и не требует его версии
+            order.setUser(entityManager.getReference(User.class, order.getUser().getUserId()));
+        }
+        Order createdOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(createdOrder));
+        eventPublisher.publishEvent(OrderAggregatesChangedEvent.of(added(createdOrder)));
+        return createdOrder;
     }
 
     @Override
-    public Order updateOrder(Long orderId, Order order) {
-        Order orderToUpdate = getOrderById(orderId);
-        orderToUpdate.setAmount(order.getAmount());
-        orderToUpdate.setOrderStatus(order.getOrderStatus());
-        return orderRepository.save(order);
+    public List<BatchItemResult> createOrders(Iterator<Order> orders) {
+        int chunkSize = batchProperties.chunkSize();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Order> chunk = new ArrayList<>(chunkSize);
+        while (orders.hasNext()) {
+            chunk.add(orders.next());
+            if (chunk.size() == chunkSize || !orders.hasNext()) {
+                insertChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        return results;
+    }
+
+    private void insertChunk(List<Order> chunk, List<BatchItemResult> results) {
+        // Владельцы всей порции проверяются одним запросом, а не по ссылке на каждый заказ
+        Set<Long> userIds = chunk.stream()
+                .map(Order::getUser)
+                .filter(Objects::nonNull)
+                .map(User::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existingUserIds = userIds.isEmpty() ? Set.of() : userRepository.findExistingIds(userIds);
+
+        int firstIndex = results.size();
+        List<Order> inserted = new ArrayList<>(chunk.size());
+        for (Order order : chunk) {
+            String error = validate(order, existingUserIds);
+            if (error != null) {
+                results.add(BatchItemResult.rejected(results.size(), error));
+                continue;
+            }
+            order.setOrderId(null);
+            order.setVersion(null);
+            order.setUser(entityManager.getReference(User.class, order.getUser().getUserId()));
+            entityManager.persist(order);
+            inserted.add(order);
+            results.add(null);
+        }
+        entityManager.flush();
+
+        int next = 0;
+        for (int i = firstIndex; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Order order = inserted.get(next++);
+                results.set(i, BatchItemResult.created(i, order.getOrderId()));
+                eventPublisher.publishEvent(OrderChangedEvent.of(order));
+            }
+        }
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(OrderAggregatesChangedEvent.of(inserted.stream()
+                    .map(OrderServiceImpl::added)
+                    .toList()));
+        }
+        entityManager.clear();
+    }
+
+    private static OrderAggregate added(Order order) {
+        return OrderAggregate.added(order.getUser() == null ? null : order.getUser().getUserId(),
+                order.getOrderStatus(), order.getAmount());
+    }
+
+    private String validate(Order order, Set<Long> existingUserIds) {
+        Set<ConstraintViolation<Order>> violations = validator.validate(order);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        Long userId = order.getUser().getUserId();
+        if (userId == null) {
+            return "не указан пользователь";
+        }
+        if (!existingUserIds.contains(userId)) {
+            return "User with id " + userId + " not found";
+        }
+        return null;
+    }
+
+    @Override
+    public Tagged<Order> updateOrder(Long orderId, Order order, OrderVersion expectedVersion) {
+        // Изменение через управляемую сущность: UPDATE проверяет @Version, поэтому прежние статус и сумма,
+        // от которых считается приращение статистики, не могут устареть без блокировки строки, а из
+        // кэша второго уровня вытесняется только этот заказ
+        Order current = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order with id " + orderId + " not found"));
+        OrderVersion currentVersion = OrderVersion.of(current);
+        if (expectedVersion != null) {
+            if (!expectedVersion.eTag().equals(currentVersion.eTag())) {
+                throw new PreconditionFailedException("Order with id " + orderId + " has been modified");
+            }
+            // версия владельца тоже входит в ETag: при коммите она сверяется ещё раз
+            entityManager.lock(current.getUser(), LockModeType.OPTIMISTIC);
+        }
+        OrderAmount previous = new OrderAmount(orderId, currentVersion.userId(), current.getOrderStatus(),
+                current.getAmount());
+        current.setAmount(order.getAmount());
+        current.setOrderStatus(order.getOrderStatus());
+        try {
+            orderRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            throw new PreconditionFailedException("Order with id " + orderId + " has been modified");
+        }
+        eventPublisher.publishEvent(new OrderChangedEvent(orderId, previous.userId()));
+        eventPublisher.publishEvent(OrderAggregatesChangedEvent.of(
+                OrderAggregate.removed(previous),
+                OrderAggregate.added(previous.userId(), order.getOrderStatus(), order.getAmount())));
+
+        Order updatedOrder = Order.builder()
+                .orderId(orderId)
+                .amount(current.getAmount())
+                .orderStatus(current.getOrderStatus())
+                .version(current.getVersion())
+                .build();
+        return new Tagged<>(updatedOrder, OrderVersion.of(current).eTag());
+    }
+
+    @Override
+    public int transitionStatus(OrderStatusTransition transition) {
+        OrderStatus target = transition.targetStatus();
+        Set<OrderStatus> sources = target.allowedSources();
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Orders cannot be moved to " + target);
+        }
+        if (transition.byIds()) {
+            // владельцы нужны, чтобы сбросить их UserDetails; строки заблокированы до UPDATE,
+            // поэтому под его условие попадут ровно те из них, что сейчас в допустимом статусе
+            List<OrderAmount> rows = orderRepository.lockAmountsByOrderIds(transition.orderIds());
+            int updated = orderRepository.updateStatusByOrderIds(transition.orderIds(), sources, target);
+            rows.forEach(row -> eventPublisher.publishEvent(new OrderChangedEvent(row.orderId(), row.userId())));
+            publishTransitioned(rows.stream().filter(row -> sources.contains(row.orderStatus())).toList(),
+                    target, updated);
+            return updated;
+        }
+        List<OrderAmount> rows = orderRepository.lockAmountsByOwner(transition.userId(), transition.currentStatus(),
+                sources);
+        int updated = orderRepository.updateStatusByOwner(transition.userId(), transition.currentStatus(),
+                sources, target);
+        if (updated > 0) {
+            // сбрасывает UserDetails владельца и все его закэшированные заказы
+            eventPublisher.publishEvent(new UserChangedEvent(transition.userId()));
+        }
+        publishTransitioned(rows, target, updated);
+        return updated;
+    }
+
+    private void publishTransitioned(List<OrderAmount> rows, OrderStatus target, int updated) {
+        if (rows.size() != updated) {
+            // строка перешла в исходный статус между блокировкой и UPDATE — приращения неизвестны
+            eventPublisher.publishEvent(OrderAggregatesChangedEvent.resyncRequired());
+            return;
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<OrderAggregate> deltas = new ArrayList<>(rows.size() * 2);
+        for (OrderAmount row : rows) {
+            deltas.add(OrderAggregate.removed(row));
+            deltas.add(OrderAggregate.added(row.userId(), target, row.amount()));
+        }
+        eventPublisher.publishEvent(OrderAggregatesChangedEvent.of(deltas));
     }
 
     @Transactional(readOnly = true)
     @Override
     public Order getOrderById(Long orderId) {
-        return orderRepository.findById(orderId).orElseThrow(() -> new ResourceNotFoundException(
+        return orderRepository.findOrderDetailsByOrderId(orderId).orElseThrow(() -> new ResourceNotFoundException(
+                "Order with id " + orderId + " not found"));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Order getOrderById(Long orderId, Class<?> view, SparseFields fields) {
+        RootGraph<Order> graph = viewEntityGraphs.graph(entityManager, Order.class, view, fields);
+        Order order = entityManager.find(Order.class, orderId, Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, graph));
+        if (order == null) {
+            throw new ResourceNotFoundException("Order with id " + orderId + " not found");
+        }
+        viewEntityGraphs.initialize(order, graph.getAttributeNodes());
+        return order;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public OrderVersion getOrderVersion(Long orderId) {
+        return orderRepository.findVersionByOrderId(orderId).orElseThrow(() -> new ResourceNotFoundException(
                 "Order with id " + orderId + " not found"));
     }
 
     @Override
     public void deleteOrder(Long orderId) {
-        orderRepository.deleteById(orderId);
+        orderRepository.findById(orderId).ifPresent(order -> {
+            orderRepository.delete(order);
+            eventPublisher.publishEvent(OrderChangedEvent.of(order));
+            eventPublisher.publishEvent(OrderAggregatesChangedEvent.of(OrderAggregate.removed(
+                    order.getUser() == null ? null : order.getUser().getUserId(),
+                    order.getOrderStatus(), order.getAmount())));
+        });
+    }
+
+    // счётчики в памяти: транзакция и соединение с базой не нужны
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public OrderStats getStatistics(Long userId) {
+        return orderStatistics.snapshot(userId);
     }
 
     @Transactional(readOnly = true)
@@ -47,4 +289,27 @@ public class OrderServiceImpl implements OrderService {
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<Order> getOrdersPage(Long afterOrderId, int limit) {
+        List<Order> orders = orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(
+                afterOrderId == null ? 0L : afterOrderId, Limit.of(limit + 1));
+        if (orders.size() <= limit) {
+            return new KeysetPage<>(orders, null);
+        }
+        List<Order> content = orders.subList(0, limit);
+        return new KeysetPage<>(content, content.get(limit - 1).getOrderId());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAllOrders(Consumer<Order> action) {
+        try (Stream<Order> orders = orderRepository.streamAll()) {
+            orders.forEach(order -> {
+                action.accept(order);
+                entityManager.detach(order);
+            });
+        }
+    }
 }
@@ -1,19 +1,45 @@
 package ru.javacode.springmvcjsonview.service;
 
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.LockState;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.dto.UserVersion;
 import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.SparseFields;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface UserService {
 
     User createUser(User user);
 
-    User updateUser(Long userId, User user);
+    /**
+     * @param expectedVersion версия из If-Match или {@code null}, если обновление безусловное
+     */
+    Tagged<User> updateUser(Long userId, User user, UserVersion expectedVersion);
+
+    /**
+     * Записывает только колонки блокировки; версии пользователей не меняются, удалённые пропускаются.
+     */
+    void updateLockStates(Collection<LockState> states);
 
     User getUserById(Long userId);
 
+    /**
+     * Загружает только ассоциации, которые видны в view и запрошены в {@code fields}.
+     */
+    User getUserById(Long userId, Class<?> view, SparseFields fields);
+
+    UserVersion getUserVersion(Long userId);
+
     void deleteUser(Long userId);
 
     List<User> getAllUsers();
+
+    void streamAllUsers(Consumer<User> action);
+
+    KeysetPage<User> getUsersPage(Long afterUserId, int limit);
 }
@@ -1,48 +1,153 @@
 package ru.javacode.springmvcjsonview.service;
 
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.graph.RootGraph;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.LockState;
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.dto.UserVersion;
+import ru.javacode.springmvcjsonview.event.OrderAggregatesChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserCredentialsChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserEmailAssignedEvent;
+import ru.javacode.springmvcjsonview.exception.PreconditionFailedException;
 import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
 import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
 import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.repository.ViewEntityGraphs;
+import ru.javacode.springmvcjsonview.view.SparseFields;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Transactional
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[ayb]\\$.{56}$");
+
     private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityManager entityManager;
+    private final ViewEntityGraphs viewEntityGraphs;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public User createUser(User user) {
         String encodedPassword = passwordEncoder.encode(user.getPassword());
         user.setPassword(encodedPassword);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserEmailAssignedEvent(savedUser.getEmail()));
+        return savedUser;
     }
 
     @Override
-    public User updateUser(Long userId, User user) {
+    public Tagged<User> updateUser(Long userId, User user, UserVersion expectedVersion) {
+        if (expectedVersion != null && !getUserVersion(userId).equals(expectedVersion)) {
+            throw new PreconditionFailedException("User with id " + userId + " has been modified");
+        }
         User userToUpdate = userRepository.findById(userId).orElseThrow(() -> new ResourceNotFoundException(
                 "User with id " + userId + " not found"));
-        return userRepository.save(updateRows(userToUpdate, user));
+        // строку могли изменить между проверкой проекции и загрузкой: @Version при записи сверяется
+        // уже с загруженной версией, поэтому ожидаемая сравнивается с ней здесь
+        if (expectedVersion != null && !userToUpdate.getVersion().equals(expectedVersion.version())) {
+            throw new PreconditionFailedException("User with id " + userId + " has been modified");
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+        boolean emailChanged = user.getEmail() != null && !user.getEmail().equals(userToUpdate.getEmail());
+        if (emailChanged) {
+            eventPublisher.publishEvent(new UserEmailAssignedEvent(user.getEmail()));
+        }
+        boolean passwordChanged = isPasswordChanged(user.getPassword(), userToUpdate.getPassword());
+        if (emailChanged || passwordChanged) {
+            // токены на прежний email аутентифицируются по claims, поэтому отзываются после коммита
+            eventPublisher.publishEvent(new UserCredentialsChangedEvent(userToUpdate.getEmail()));
+        }
+
+        User updatedUser;
+        try {
+            updatedUser = userRepository.saveAndFlush(updateRows(userToUpdate, user, passwordChanged));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // строку изменили между загрузкой и записью
+            if (expectedVersion == null) {
+                throw e;
+            }
+            throw new PreconditionFailedException("User with id " + userId + " has been modified");
+        }
+        return new Tagged<>(updatedUser, getUserVersion(userId).eTag());
+    }
+
+    @Override
+    public void updateLockStates(Collection<LockState> states) {
+        // пользователи приходят из кэша второго уровня, а @DynamicUpdate оставляет в UPDATE только изменённые колонки;
+        // одинаковые UPDATE уходят одним JDBC-батчем
+        for (LockState state : states) {
+            userRepository.findById(state.userId()).ifPresent(user -> {
+                user.setFailedAttempts(state.failedAttempts());
+                user.setAccountNonLocked(state.accountNonLocked());
+                user.setLockTime(state.lockTime());
+            });
+        }
     }
 
     @Transactional(readOnly = true)
     @Override
     public User getUserById(Long userId) {
-        return userRepository.findById(userId).orElseThrow(() -> new ResourceNotFoundException(
+        return userRepository.findUserDetailsByUserId(userId).orElseThrow(() -> new ResourceNotFoundException(
+                "User with id " + userId + " not found"));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public User getUserById(Long userId, Class<?> view, SparseFields fields) {
+        RootGraph<User> graph = viewEntityGraphs.graph(entityManager, User.class, view, fields);
+        User user = entityManager.find(User.class, userId, Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, graph));
+        if (user == null) {
+            throw new ResourceNotFoundException("User with id " + userId + " not found");
+        }
+        viewEntityGraphs.initialize(user, graph.getAttributeNodes());
+        return user;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public UserVersion getUserVersion(Long userId) {
+        return userRepository.findVersionByUserId(userId).orElseThrow(() -> new ResourceNotFoundException(
                 "User with id " + userId + " not found"));
     }
 
     @Override
     public void deleteUser(Long userId) {
-        userRepository.deleteById(userId);
+        // заказы удаляются каскадом, поэтому их вклад в статистику снимается здесь же
+        List<OrderAggregate> removed = orderRepository.lockAmountsByUserId(userId).stream()
+                .map(OrderAggregate::removed)
+                .toList();
+        userRepository.findById(userId).ifPresent(user -> {
+            userRepository.delete(user);
+            // выданные удалённому пользователю токены отзываются после коммита, как и при смене email
+            eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getEmail()));
+        });
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+        if (!removed.isEmpty()) {
+            eventPublisher.publishEvent(OrderAggregatesChangedEvent.of(removed));
+        }
     }
 
     @Transactional(readOnly = true)
@@ -51,7 +156,30 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll();
     }
 
-    private User updateRows(User updatedUser, User userToUpdate) {
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<User> getUsersPage(Long afterUserId, int limit) {
+        List<User> users = userRepository.findByUserIdGreaterThanOrderByUserIdAsc(
+                afterUserId == null ? 0L : afterUserId, Limit.of(limit + 1));
+        if (users.size() <= limit) {
+            return new KeysetPage<>(users, null);
+        }
+        List<User> content = users.subList(0, limit);
+        return new KeysetPage<>(content, content.get(limit - 1).getUserId());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAllUsers(Consumer<User> action) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                action.accept(user);
+                entityManager.detach(user);
+            });
+        }
+    }
+
+    private User updateRows(User updatedUser, User userToUpdate, boolean passwordChanged) {
 
         if (userToUpdate.getName() != null) {
             updatedUser.setName(userToUpdate.getName());
@@ -59,16 +187,23 @@ public class UserServiceImpl implements UserService {
         if (userToUpdate.getEmail() != null) {
             updatedUser.setEmail(userToUpdate.getEmail());
         }
-        if (userToUpdate.getPassword() != null) {
-            updatedUser.setPassword(userToUpdate.getPassword());
+        if (passwordChanged) {
+            String password = userToUpdate.getPassword();
+            updatedUser.setPassword(BCRYPT_HASH.matcher(password).matches()
+                    ? password
+                    : passwordEncoder.encode(password));
         }
+        return updatedUser;
+    }
 
-        if (userToUpdate.getPassword().matches("^\\$2[ayb]\\$.{56}$")) {
-            updatedUser.setPassword(userToUpdate.getPassword());
-        } else {
-            String encodedPassword = passwordEncoder.encode(userToUpdate.getPassword());
-            updatedUser.setPassword(encodedPassword);
+    // хеш сравнивается как строка, открытый пароль — через BCrypt с сохранённым хешем
+    private boolean isPasswordChanged(String requested, String stored) {
+        if (requested == null) {
+            return false;
         }
-        return updatedUser;
+        if (BCRYPT_HASH.matcher(requested).matches()) {
+            return !requested.equals(stored);
+        }
+        return stored == null || !passwordEncoder.matches(requested, stored);
     }
 }
@@ -0,0 +1,211 @@
+package ru.javacode.springmvcjsonview.stats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.javacode.springmvcjsonview.config.BackgroundThreads;
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+import ru.javacode.springmvcjsonview.dto.OrderStats;
+import ru.javacode.springmvcjsonview.event.OrderAggregatesChangedEvent;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Число заказов и их сумма по статусам и по владельцам, которые хранятся в памяти.
+ * Значения собираются агрегирующим запросом при старте и при пересборке, а в остальное время меняются
+ * только приращениями из закоммиченных транзакций, поэтому ответ не зависит от размера таблицы.
+ * Транзакция, опубликовавшая приращения, держит read-блокировку {@link #changes} с момента публикации
+ * до их применения после коммита. Пересборка берёт write-блокировку, поэтому её снимок либо уже видит
+ * коммит и применённое приращение, либо не видит ни того, ни другого: приращение не теряется и не
+ * учитывается дважды. Счётчики читаются без блокировки: снимок, снятый во время записи, может не
+ * содержать часть приращений ещё не завершённого применения события.
+ */
+@Component
+public class OrderStatistics {
+
+    // суммы хранятся в копейках, чтобы складывать их в LongAdder без потерь точности
+    private static final int AMOUNT_SCALE = 2;
+    private static final long RESYNC_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatistics.class);
+
+    private final OrderRepository orderRepository;
+    private final ReentrantReadWriteLock changes = new ReentrantReadWriteLock();
+    // пересборка идёт в своём потоке: поток транзакции, запросившей её, сам держит read-блокировку
+    private final ExecutorService resyncExecutor;
+    private final AtomicBoolean resyncPending = new AtomicBoolean();
+
+    private volatile Aggregates aggregates = new Aggregates();
+
+    public OrderStatistics(OrderRepository orderRepository, BackgroundThreads backgroundThreads) {
+        this.orderRepository = orderRepository;
+        this.resyncExecutor = Executors.newSingleThreadExecutor(backgroundThreads.factory("order-stats-resync-"));
+    }
+
+    @PostConstruct
+    public void seed() {
+        changes.writeLock().lock();
+        try {
+            load();
+        } finally {
+            changes.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Вызывается при публикации, внутри транзакции изменения; приращения применяются после её коммита.
+     * Без транзакции применяются сразу.
+     */
+    @EventListener
+    public void onAggregatesChanged(OrderAggregatesChangedEvent event) {
+        changes.readLock().lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                apply(event);
+            } finally {
+                changes.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        apply(event);
+                    }
+                } finally {
+                    changes.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        resyncExecutor.shutdownNow();
+    }
+
+    private void apply(OrderAggregatesChangedEvent event) {
+        if (event.resync()) {
+            if (resyncPending.compareAndSet(false, true)) {
+                resyncExecutor.execute(this::resync);
+            }
+            return;
+        }
+        Aggregates current = aggregates;
+        event.deltas().forEach(current::apply);
+    }
+
+    private void resync() {
+        resyncPending.set(false);
+        // write-блокировка берётся без постановки в очередь: ожидающий её поток блокировал бы новые
+        // транзакции, которые к этому моменту уже держат строки, нужные транзакциям с read-блокировкой
+        while (!changes.writeLock().tryLock()) {
+            LockSupport.parkNanos(RESYNC_RETRY_NANOS);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+        try {
+            load();
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось пересобрать статистику заказов", e);
+        } finally {
+            changes.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        Aggregates seeded = new Aggregates();
+        orderRepository.sumByOwnerAndStatus().forEach(seeded::apply);
+        aggregates = seeded;
+    }
+
+    /**
+     * @param userId владелец, по которому нужны итоги, или {@code null} — тогда итоги по всем владельцам
+     */
+    public OrderStats snapshot(Long userId) {
+        Aggregates current = aggregates;
+        Map<OrderStatus, OrderStats.Totals> byStatus = new EnumMap<>(OrderStatus.class);
+        current.byStatus.forEach((status, cell) -> byStatus.put(status, cell.totals()));
+
+        Map<Long, OrderStats.Totals> byUser = new LinkedHashMap<>();
+        if (userId != null) {
+            Cell cell = current.byUser.get(userId);
+            if (cell != null && !cell.isEmpty()) {
+                byUser.put(userId, cell.totals());
+            }
+        } else {
+            current.byUser.forEach((id, cell) -> {
+                if (!cell.isEmpty()) {
+                    byUser.put(id, cell.totals());
+                }
+            });
+        }
+        return new OrderStats(byStatus, byUser);
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static final class Aggregates {
+
+        private final Map<OrderStatus, Cell> byStatus = new EnumMap<>(OrderStatus.class);
+        private final ConcurrentMap<Long, Cell> byUser = new ConcurrentHashMap<>();
+
+        private Aggregates() {
+            for (OrderStatus status : OrderStatus.values()) {
+                byStatus.put(status, new Cell());
+            }
+        }
+
+        private void apply(OrderAggregate delta) {
+            long minorUnits = toMinorUnits(delta.amount());
+            byStatus.get(delta.orderStatus()).add(delta.count(), minorUnits);
+            if (delta.userId() != null) {
+                byUser.computeIfAbsent(delta.userId(), id -> new Cell()).add(delta.count(), minorUnits);
+            }
+        }
+    }
+
+    private static final class Cell {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder minorUnits = new LongAdder();
+
+        private void add(long count, long minorUnits) {
+            this.count.add(count);
+            this.minorUnits.add(minorUnits);
+        }
+
+        private boolean isEmpty() {
+            return count.sum() == 0 && minorUnits.sum() == 0;
+        }
+
+        private OrderStats.Totals totals() {
+            return new OrderStats.Totals(count.sum(), BigDecimal.valueOf(minorUnits.sum(), AMOUNT_SCALE));
+        }
+    }
+}
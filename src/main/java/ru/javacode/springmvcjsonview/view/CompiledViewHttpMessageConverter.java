@@ -0,0 +1,82 @@
+package ru.javacode.springmvcjsonview.view;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.TypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
+public class CompiledViewHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final ViewCompiler viewCompiler;
+
+    public CompiledViewHttpMessageConverter(ViewCompiler viewCompiler) {
+        super(viewCompiler.getObjectMapper());
+        this.viewCompiler = viewCompiler;
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (!writeWithView(viewCompiler, object, type, this::resolveType, outputMessage,
+                getJsonEncoding(outputMessage.getHeaders().getContentType()))) {
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+
+    private JavaType resolveType(Type type) {
+        return getJavaType(type, null);
+    }
+
+    /**
+     * Общий путь для JSON и бинарных конвертеров. Фильтры поддерживаются только {@link SparseFields};
+     * writer выбирается до записи заголовков, чтобы ошибка в {@code ?fields=} ещё могла стать ответом 400.
+     *
+     * @return {@code false}, если значение не view-обёртка и писать должен стандартный конвертер
+     */
+    static boolean writeWithView(ViewCompiler viewCompiler, Object object, @Nullable Type type,
+                                 Function<Type, JavaType> typeResolver, HttpOutputMessage outputMessage,
+                                 JsonEncoding encoding) throws IOException {
+        if (!(object instanceof MappingJacksonValue jacksonValue)
+                || jacksonValue.getSerializationView() == null) {
+            return false;
+        }
+        SparseFields fields = null;
+        if (jacksonValue.getFilters() != null) {
+            if (!(jacksonValue.getFilters() instanceof SparseFields sparseFields)) {
+                return false;
+            }
+            fields = sparseFields;
+        }
+
+        Object value = jacksonValue.getValue();
+        JavaType javaType = (type != null && TypeUtils.isAssignable(type, value.getClass()))
+                ? typeResolver.apply(type)
+                : viewCompiler.getObjectMapper().constructType(value.getClass());
+        ObjectWriter writer = viewCompiler.writerFor(javaType, jacksonValue.getSerializationView(), fields);
+
+        try (JsonGenerator generator = writer.createGenerator(StreamUtils.nonClosing(outputMessage.getBody()),
+                encoding)) {
+            writer.writeValue(generator, value);
+            generator.flush();
+        } catch (InvalidDefinitionException ex) {
+            throw new HttpMessageConversionException("Type definition error: " + ex.getType(), ex);
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " + ex.getOriginalMessage(), ex);
+        }
+        return true;
+    }
+}
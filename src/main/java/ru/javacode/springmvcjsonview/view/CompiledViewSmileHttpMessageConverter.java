@@ -0,0 +1,38 @@
+package ru.javacode.springmvcjsonview.view;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.JavaType;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Smile-конвертер с теми же предкомпилированными view-writer'ами, что и JSON.
+ * Наследует стандартный, чтобы Spring Boot поставил его на место стандартного — после JSON.
+ */
+public class CompiledViewSmileHttpMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+    private final ViewCompiler viewCompiler;
+
+    public CompiledViewSmileHttpMessageConverter(ViewCompiler viewCompiler) {
+        super(viewCompiler.getObjectMapper());
+        this.viewCompiler = viewCompiler;
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (!CompiledViewHttpMessageConverter.writeWithView(viewCompiler, object, type, this::resolveType,
+                outputMessage, JsonEncoding.UTF8)) {
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+
+    private JavaType resolveType(Type type) {
+        return getJavaType(type, null);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.javacode.springmvcjsonview.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Разобранный {@code ?fields=orderId,amount,user.name}: дерево запрошенных свойств.
+ * Дерево нормализовано (без повторов, по алфавиту), поэтому разные записи одного набора полей
+ * дают один ключ для кэша writer'ов в {@link ViewCompiler}. Поля только сужают {@code @JsonView}:
+ * фильтр исключает свойства, но не может добавить скрытые представлением.
+ */
+public final class SparseFields extends FilterProvider {
+
+    static final String FILTER_ID = "sparseFields";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final int MAX_PATHS = 64;
+
+    // null в значении — свойство запрошено целиком
+    private final Map<String, SparseFields> nested;
+    private final String normalized;
+    private final Filter filter = new Filter();
+
+    private SparseFields(Map<String, SparseFields> nested) {
+        this.nested = Collections.unmodifiableMap(nested);
+        StringBuilder builder = new StringBuilder();
+        nested.forEach((name, child) -> {
+            if (!builder.isEmpty()) {
+                builder.append(',');
+            }
+            builder.append(name);
+            if (child != null) {
+                builder.append('(').append(child.normalized).append(')');
+            }
+        });
+        this.normalized = builder.toString();
+    }
+
+    /**
+     * @return набор полей или {@code null}, если параметр не передан
+     * @throws IllegalArgumentException если в параметре есть пустые или недопустимые имена
+     */
+    public static SparseFields parse(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return null;
+        }
+        String[] paths = fields.split(",");
+        if (paths.length > MAX_PATHS) {
+            throw new IllegalArgumentException("Too many fields requested: " + paths.length);
+        }
+        List<String[]> parsed = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            String[] names = path.trim().split("\\.", -1);
+            for (String name : names) {
+                if (!NAME.matcher(name).matches()) {
+                    throw new IllegalArgumentException("Invalid field: '" + path.trim() + "'");
+                }
+            }
+            parsed.add(names);
+        }
+        return of(parsed, 0);
+    }
+
+    private static SparseFields of(List<String[]> paths, int depth) {
+        Map<String, List<String[]>> byName = new TreeMap<>();
+        Set<String> whole = new HashSet<>();
+        for (String[] path : paths) {
+            if (path.length == depth + 1) {
+                whole.add(path[depth]); // целиком перекрывает запрошенные подполя
+            }
+            byName.computeIfAbsent(path[depth], name -> new ArrayList<>()).add(path);
+        }
+        Map<String, SparseFields> nested = new TreeMap<>();
+        byName.forEach((name, group) -> nested.put(name, whole.contains(name) ? null : of(group, depth + 1)));
+        return new SparseFields(nested);
+    }
+
+    public Set<String> names() {
+        return nested.keySet();
+    }
+
+    public boolean includes(String name) {
+        return nested.containsKey(name);
+    }
+
+    /**
+     * Подполя свойства или {@code null}, если свойство запрошено целиком либо не запрошено вовсе.
+     */
+    public SparseFields nested(String name) {
+        return nested.get(name);
+    }
+
+    @Override
+    @Deprecated
+    public BeanPropertyFilter findFilter(Object filterId) {
+        // старый API Jackson без сериализуемого значения: тот же фильтр, что и в findPropertyFilter
+        return FILTER_ID.equals(filterId) ? filter : null;
+    }
+
+    @Override
+    public PropertyFilter findPropertyFilter(Object filterId, Object valueToFilter) {
+        return FILTER_ID.equals(filterId) ? filter : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SparseFields other && normalized.equals(other.normalized);
+    }
+
+    @Override
+    public int hashCode() {
+        return normalized.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return normalized;
+    }
+
+    private class Filter extends SimpleBeanPropertyFilter {
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider,
+                                     PropertyWriter writer) throws Exception {
+            SparseFields selection = selectionFor(gen.getOutputContext());
+            if (selection == null || selection.includes(writer.getName())) {
+                writer.serializeAsField(pojo, gen, provider);
+            } else if (!gen.canOmitFields()) {
+                writer.serializeAsOmittedField(pojo, gen, provider);
+            }
+        }
+
+        /**
+         * Поля, запрошенные для текущего объекта: путь до него восстанавливается по контекстам генератора,
+         * элементы массивов пути не меняют. {@code null} — объект запрошен целиком.
+         */
+        private SparseFields selectionFor(JsonStreamContext context) {
+            Deque<String> path = new ArrayDeque<>();
+            for (JsonStreamContext parent = context.getParent(); parent != null; parent = parent.getParent()) {
+                if (parent.inObject()) {
+                    path.addFirst(parent.getCurrentName());
+                }
+            }
+            SparseFields selection = SparseFields.this;
+            for (String name : path) {
+                selection = selection.nested(name);
+                if (selection == null) {
+                    return null;
+                }
+            }
+            return selection;
+        }
+    }
+}
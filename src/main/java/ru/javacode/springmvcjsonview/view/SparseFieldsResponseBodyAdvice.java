@@ -0,0 +1,43 @@
+package ru.javacode.springmvcjsonview.view;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Передаёт {@code ?fields=} в ответы методов с {@code @JsonView}: набор полей становится фильтром
+ * {@link MappingJacksonValue}, а конвертеры берут под него готовый writer из {@link ViewCompiler}.
+ * Только для GET и HEAD: у изменяющих запросов ошибка в {@code fields} проявилась бы при записи тела,
+ * уже после коммита, и клиент получил бы 400 на выполненное изменение.
+ */
+@ControllerAdvice
+public class SparseFieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    public static final String PARAMETER = "fields";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return super.supports(returnType, converterType) && returnType.hasMethodAnnotation(JsonView.class);
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && (HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod()))) {
+            SparseFields fields = SparseFields.parse(servletRequest.getServletRequest().getParameter(PARAMETER));
+            if (fields != null) {
+                bodyContainer.setFilters(fields);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.javacode.springmvcjsonview.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Пишет элементы в массив (JSON, Smile или CBOR) по одному, по мере того как их отдаёт источник,
+ * не собирая весь список в памяти.
+ */
+public class StreamingViewWriter {
+
+    private final ViewCompilers viewCompilers;
+
+    public StreamingViewWriter(ViewCompilers viewCompilers) {
+        this.viewCompilers = viewCompilers;
+    }
+
+    /**
+     * @param fields поля из {@code ?fields=} или {@code null}; проверяются сразу, до начала ответа
+     */
+    public <T> StreamingResponseBody array(WireFormat format, Class<T> type, Class<?> view, SparseFields fields,
+                                           Consumer<Consumer<T>> source) {
+        ObjectWriter writer = viewCompilers.forFormat(format).writerFor(type, view, fields);
+        return outputStream -> {
+            try (JsonGenerator generator = writer.createGenerator(StreamUtils.nonClosing(outputStream))) {
+                generator.writeStartArray();
+                source.accept(item -> write(writer, generator, item));
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    /**
+     * NDJSON: по объекту на строку, без обрамляющего массива. Ответ сбрасывается каждые {@code chunkSize} строк.
+     * Запись в ответ блокирующая: пока медленный клиент не заберёт данные, источник не получает
+     * управления и не читает следующие строки курсора, так что память не растёт ни на одной из сторон.
+     */
+    public <T> StreamingResponseBody lines(Class<T> type, Class<?> view, int chunkSize,
+                                           Consumer<Consumer<T>> source) {
+        ObjectWriter writer = viewCompilers.forFormat(WireFormat.JSON).writerFor(type, view)
+                .withRootValueSeparator((String) null);
+        return outputStream -> {
+            try (JsonGenerator generator = writer.createGenerator(StreamUtils.nonClosing(outputStream))) {
+                int[] pending = {0};
+                source.accept(item -> {
+                    write(writer, generator, item);
+                    try {
+                        generator.writeRaw('\n');
+                        if (++pending[0] == chunkSize) {
+                            pending[0] = 0;
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private static void write(ObjectWriter writer, JsonGenerator generator, Object item) {
+        try {
+            writer.writeValue(generator, item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ru.javacode.springmvcjsonview.view;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Один раз при старте обходит классы {@link Views} и сущности, вычисляет набор свойств
+ * для каждой пары (тип, view) и держит готовый {@link ObjectWriter} на каждую пару,
+ * чтобы не собирать view-фильтрованный writer на каждый ответ.
+ * Writer'ы для {@code ?fields=} строятся на копии маппера с фильтром {@link SparseFields}
+ * и кэшируются по нормализованному набору полей.
+ */
+public class ViewCompiler {
+
+    private static final int MAX_SPARSE_WRITERS = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper sparseMapper;
+    private final Map<Class<?>, Map<Class<?>, Set<String>>> propertySets;
+    private final Map<Class<?>, Map<String, Class<?>>> nestedTypes = new HashMap<>();
+    private final Map<WriterKey, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final Cache<SparseWriterKey, ObjectWriter> sparseWriters = Caffeine.newBuilder()
+            .maximumSize(MAX_SPARSE_WRITERS)
+            .build();
+
+    public ViewCompiler(ObjectMapper objectMapper, Class<?> viewsHolder, Class<?>... types) {
+        this.objectMapper = objectMapper;
+        this.sparseMapper = objectMapper.copy();
+        for (Class<?> type : types) {
+            sparseMapper.addMixIn(type, SparseFieldsMixIn.class);
+            nestedTypes.put(type, resolveNestedTypes(type, Set.of(types)));
+        }
+
+        Map<Class<?>, Map<Class<?>, Set<String>>> compiled = new LinkedHashMap<>();
+        for (Class<?> type : types) {
+            Map<Class<?>, Set<String>> byView = new LinkedHashMap<>();
+            for (Class<?> view : viewsHolder.getDeclaredClasses()) {
+                Set<String> properties = resolveProperties(type, view);
+                if (properties.isEmpty()) {
+                    continue;
+                }
+                byView.put(view, properties);
+                writerFor(objectMapper.constructType(type), view);
+                writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, type), view);
+            }
+            compiled.put(type, Collections.unmodifiableMap(byView));
+        }
+        this.propertySets = Collections.unmodifiableMap(compiled);
+    }
+
+    public ObjectWriter writerFor(JavaType type, Class<?> view) {
+        return writers.computeIfAbsent(new WriterKey(type, view),
+                key -> objectMapper.writerWithView(key.view())
+                        .forType(key.type())
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    public ObjectWriter writerFor(Class<?> type, Class<?> view) {
+        return writerFor(objectMapper.constructType(type), view);
+    }
+
+    /**
+     * Writer, который пишет только запрошенные поля из тех, что видны в view.
+     *
+     * @param fields набор полей или {@code null} — тогда это обычный writer для view
+     * @throws IllegalArgumentException если поле неизвестно или скрыто view
+     */
+    public ObjectWriter writerFor(JavaType type, Class<?> view, SparseFields fields) {
+        if (fields == null) {
+            return writerFor(type, view);
+        }
+        checkFields(type.isContainerType() ? type.getContentType().getRawClass() : type.getRawClass(), view, fields);
+        return sparseWriters.get(new SparseWriterKey(type, view, fields),
+                key -> sparseMapper.writerWithView(key.view())
+                        .forType(key.type())
+                        .with(key.fields())
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    public ObjectWriter writerFor(Class<?> type, Class<?> view, SparseFields fields) {
+        return writerFor(objectMapper.constructType(type), view, fields);
+    }
+
+    public void checkFields(Class<?> type, Class<?> view, SparseFields fields) {
+        checkFields(type, view, fields, "");
+    }
+
+    public Set<String> propertiesOf(Class<?> type, Class<?> view) {
+        return propertySets.getOrDefault(type, Map.of()).getOrDefault(view, Set.of());
+    }
+
+    public Set<Class<?>> viewsOf(Class<?> type) {
+        return propertySets.getOrDefault(type, Map.of()).keySet();
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    private void checkFields(Class<?> type, Class<?> view, SparseFields fields, String prefix) {
+        Set<String> visible = propertiesOf(type, view);
+        for (String name : fields.names()) {
+            if (!visible.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: '" + prefix + name + "'");
+            }
+            SparseFields nested = fields.nested(name);
+            if (nested == null) {
+                continue;
+            }
+            Class<?> nestedType = nestedTypes.getOrDefault(type, Map.of()).get(name);
+            if (nestedType == null) {
+                throw new IllegalArgumentException("Field '" + prefix + name + "' has no nested fields");
+            }
+            checkFields(nestedType, view, nested, prefix + name + ".");
+        }
+    }
+
+    private Map<String, Class<?>> resolveNestedTypes(Class<?> type, Set<Class<?>> types) {
+        BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(type));
+        Map<String, Class<?>> nested = new HashMap<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            JavaType propertyType = property.getPrimaryType();
+            Class<?> target = propertyType.isContainerType()
+                    ? propertyType.getContentType().getRawClass()
+                    : propertyType.getRawClass();
+            if (types.contains(target)) {
+                nested.put(property.getName(), target);
+            }
+        }
+        return Collections.unmodifiableMap(nested);
+    }
+
+    private Set<String> resolveProperties(Class<?> type, Class<?> view) {
+        SerializationConfig config = objectMapper.getSerializationConfig();
+        BeanDescription description = config.introspect(objectMapper.constructType(type));
+        boolean defaultInclusion = config.isEnabled(MapperFeature.DEFAULT_VIEW_INCLUSION);
+
+        Set<String> properties = new LinkedHashSet<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (!property.couldSerialize()) {
+                continue;
+            }
+            Class<?>[] propertyViews = property.findViews();
+            if (propertyViews == null ? defaultInclusion : isVisible(propertyViews, view)) {
+                properties.add(property.getName());
+            }
+        }
+        return Collections.unmodifiableSet(properties);
+    }
+
+    private static boolean isVisible(Class<?>[] propertyViews, Class<?> view) {
+        for (Class<?> propertyView : propertyViews) {
+            if (propertyView.isAssignableFrom(view)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record WriterKey(JavaType type, Class<?> view) {
+    }
+
+    private record SparseWriterKey(JavaType type, Class<?> view, SparseFields fields) {
+    }
+
+    @JsonFilter(SparseFields.FILTER_ID)
+    private abstract static class SparseFieldsMixIn {
+    }
+}
@@ -0,0 +1,25 @@
+package ru.javacode.springmvcjsonview.view;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link ViewCompiler} для каждого {@link WireFormat}: у каждого формата свой ObjectMapper и свои writer'ы.
+ */
+public class ViewCompilers {
+
+    private final Map<WireFormat, ViewCompiler> compilers;
+
+    public ViewCompilers(Map<WireFormat, ViewCompiler> compilers) {
+        this.compilers = new EnumMap<>(compilers);
+    }
+
+    public ViewCompiler forFormat(WireFormat format) {
+        return compilers.get(format);
+    }
+
+    public Set<WireFormat> formats() {
+        return compilers.keySet();
+    }
+}
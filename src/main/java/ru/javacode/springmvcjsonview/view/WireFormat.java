@@ -0,0 +1,70 @@
+package ru.javacode.springmvcjsonview.view;
+
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Форматы, в которых отдаются сущности. Бинарные форматы пишутся теми же view-writer'ами,
+ * что и JSON, поэтому набор полей в ответе не зависит от формата.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON, null),
+    SMILE(MediaType.valueOf(WireFormat.SMILE_VALUE), "smile"),
+    CBOR(MediaType.APPLICATION_CBOR, "cbor");
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+    private final String eTagSuffix;
+
+    WireFormat(MediaType mediaType, String eTagSuffix) {
+        this.mediaType = mediaType;
+        this.eTagSuffix = eTagSuffix;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Строгий ETag различает байтовые представления, поэтому к тегу версии добавляется суффикс формата.
+     */
+    public String eTag(String versionTag) {
+        return eTagSuffix == null ? versionTag : versionTag + "-" + eTagSuffix;
+    }
+
+    /**
+     * Тег версии без суффикса формата — If-Match сравнивает версии, а не представления.
+     */
+    public static String versionTag(String eTag) {
+        for (WireFormat format : values()) {
+            if (format.eTagSuffix != null && eTag.endsWith("-" + format.eTagSuffix)) {
+                return eTag.substring(0, eTag.length() - format.eTagSuffix.length() - 1);
+            }
+        }
+        return eTag;
+    }
+
+    /**
+     * Первый формат, который принимает клиент, с учётом q-факторов; без Accept — JSON.
+     */
+    public static WireFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            for (WireFormat format : values()) {
+                if (mediaType.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
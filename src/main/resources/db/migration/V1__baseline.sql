@@ -0,0 +1,23 @@
+-- Схема в том виде, в каком её создавал ddl-auto=update до появления версий и выделенных последовательностей.
+-- Для существующих баз эта миграция не выполняется: baseline-on-migrate отмечает их версией 1.
+-- Прежние последовательности orders_seq и users_seq новой базе не нужны: их заменяет V3.
+create table users (
+    user_id               bigint       not null,
+    user_name             varchar(255) not null,
+    user_email            varchar(255) not null,
+    user_password         varchar(255) not null,
+    user_role             varchar(255) not null check (user_role in ('MODERATOR', 'SUPER_ADMIN', 'USER')),
+    is_account_non_locked boolean      not null,
+    failed_attempts       integer,
+    lock_time             bigint,
+    primary key (user_id)
+);
+
+create table orders (
+    order_id      bigint         not null,
+    order_amount  numeric(38, 2) not null,
+    order_status  varchar(255)   not null check (order_status in ('CANCELLED', 'DELIVERY', 'PROCESSING')),
+    user_id       bigint         not null,
+    primary key (order_id),
+    constraint fk_orders_user foreign key (user_id) references users (user_id)
+);
@@ -0,0 +1,9 @@
+-- Колонки @Version для Order и User. Существующие строки получают версию 0, после чего колонки
+-- становятся обязательными, как в маппинге.
+alter table users add column user_version bigint default 0;
+update users set user_version = 0 where user_version is null;
+alter table users alter column user_version set not null;
+
+alter table orders add column order_version bigint default 0;
+update orders set order_version = 0 where order_version is null;
+alter table orders alter column order_version set not null;
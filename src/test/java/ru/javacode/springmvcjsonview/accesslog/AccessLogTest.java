@@ -0,0 +1,175 @@
+package ru.javacode.springmvcjsonview.accesslog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import ru.javacode.springmvcjsonview.config.AccessLogProperties;
+import ru.javacode.springmvcjsonview.config.BackgroundThreads;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogTest {
+
+    @Nested
+    @DisplayName("Кольцевой буфер")
+    class RingBuffer {
+
+        @Test
+        @DisplayName("Ёмкость округляется до степени двойки, порядок записей сохраняется")
+        void fifo() {
+            // Arrange
+            AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(3);
+
+            // Act
+            buffer.offer(1);
+            buffer.offer(2);
+            buffer.offer(3);
+
+            // Assert
+            assertThat(buffer.capacity()).isEqualTo(4);
+            assertThat(buffer.size()).isEqualTo(3);
+            assertThat(buffer.poll()).isEqualTo(1);
+            assertThat(buffer.poll()).isEqualTo(2);
+            assertThat(buffer.poll()).isEqualTo(3);
+            assertThat(buffer.poll()).isNull();
+        }
+
+        @Test
+        @DisplayName("Заполненный буфер сразу отказывает, а после чтения снова принимает")
+        void full() {
+            // Arrange
+            AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(2);
+            buffer.offer(1);
+            buffer.offer(2);
+
+            // Act & Assert
+            assertThat(buffer.offer(3)).isFalse();
+            assertThat(buffer.poll()).isEqualTo(1);
+            assertThat(buffer.offer(3)).isTrue();
+            assertThat(buffer.poll()).isEqualTo(2);
+            assertThat(buffer.poll()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Каждая принятая от многих писателей запись читается ровно один раз")
+        void concurrentProducers() throws Exception {
+            // Arrange
+            AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(64);
+            int producers = 8;
+            int perProducer = 20_000;
+            AtomicBoolean producing = new AtomicBoolean(true);
+            Set<Integer> received = new HashSet<>();
+            int accepted = 0;
+
+            // Act
+            try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+                List<Future<Integer>> results = new ArrayList<>();
+                for (int p = 0; p < producers; p++) {
+                    int base = p * perProducer;
+                    results.add(executor.submit(() -> {
+                        int ok = 0;
+                        for (int i = 0; i < perProducer; i++) {
+                            if (buffer.offer(base + i)) {
+                                ok++;
+                            }
+                        }
+                        return ok;
+                    }));
+                }
+                executor.submit(() -> {
+                    for (Future<Integer> result : results) {
+                        result.get();
+                    }
+                    producing.set(false);
+                    return null;
+                });
+                Integer element;
+                while (producing.get() || buffer.size() > 0) {
+                    while ((element = buffer.poll()) != null) {
+                        assertThat(received.add(element)).isTrue();
+                    }
+                }
+                for (Future<Integer> result : results) {
+                    accepted += result.get();
+                }
+            }
+
+            // Assert
+            assertThat(received).hasSize(accepted);
+            assertThat(accepted).isPositive();
+        }
+    }
+
+    @Nested
+    @DisplayName("Журнал запросов")
+    class Log {
+
+        private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private AccessLog accessLog;
+
+        @AfterEach
+        void tearDown() {
+            accessLog.shutdown();
+        }
+
+        private AccessLog accessLog(int bufferSize, double sampleRate, Map<String, Double> routes) {
+            accessLog = new AccessLog(
+                    new AccessLogProperties(true, bufferSize, Duration.ofHours(1), sampleRate, routes),
+                    meterRegistry, new BackgroundThreads(false));
+            return accessLog;
+        }
+
+        private double records(String result) {
+            return meterRegistry.get("access.log.records").tag("result", result).counter().count();
+        }
+
+        private static AccessLogRecord record(int status) {
+            return new AccessLogRecord("GET", "/api/v1/orders/{orderId}", status, 120, 64, "1");
+        }
+
+        @Test
+        @DisplayName("При переполнении запись отбрасывается и считается, запрос не ждёт")
+        void dropsOnOverflow() {
+            // Arrange
+            AccessLog log = accessLog(2, 1.0, null);
+
+            // Act
+            for (int i = 0; i < 5; i++) {
+                log.offer(record(200));
+            }
+            int drained = log.drain();
+
+            // Assert
+            assertThat(drained).isEqualTo(2);
+            assertThat(records("dropped")).isEqualTo(3);
+            assertThat(records("written")).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Доля по маршруту переопределяет общую, 5xx пишутся всегда")
+        void samplesPerRoute() {
+            // Arrange
+            AccessLog log = accessLog(16, 1.0, Map.of("/api/v1/orders/stats", 0.0));
+
+            // Act & Assert
+            assertThat(log.sample("/api/v1/orders/stats", 200)).isFalse();
+            assertThat(log.sample("/api/v1/orders/stats", 503)).isTrue();
+            assertThat(log.sample("/api/v1/orders/{orderId}", 200)).isTrue();
+            assertThat(records("sampled_out")).isEqualTo(1);
+        }
+    }
+}
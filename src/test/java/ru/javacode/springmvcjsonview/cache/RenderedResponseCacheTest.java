@@ -0,0 +1,191 @@
+package ru.javacode.springmvcjsonview.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import ru.javacode.springmvcjsonview.config.ResponseCacheProperties;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.event.OrderChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
+import ru.javacode.springmvcjsonview.view.ViewCompilers;
+import ru.javacode.springmvcjsonview.view.Views;
+import ru.javacode.springmvcjsonview.view.WireFormat;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenderedResponseCacheTest {
+
+    private final ViewCompilers viewCompilers = new ViewCompilers(Map.of(
+            WireFormat.JSON, compiler(Jackson2ObjectMapperBuilder.json()),
+            WireFormat.CBOR, compiler(Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()))));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RenderedResponseCache cache = new RenderedResponseCache(viewCompilers,
+            new ResponseCacheProperties(DataSize.ofMegabytes(1)), meterRegistry);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final User user = User.builder()
+            .userId(7L)
+            .name("testuser")
+            .email("testuser@example.com")
+            .orders(Collections.emptyList())
+            .version(5L)
+            .build();
+
+    private final Order order = Order.builder()
+            .orderId(1L)
+            .amount(new BigDecimal("99.99"))
+            .orderStatus(OrderStatus.PROCESSING)
+            .user(user)
+            .version(3L)
+            .build();
+
+    private static ViewCompiler compiler(Jackson2ObjectMapperBuilder builder) {
+        return new ViewCompiler(builder.build(), Views.class, Order.class, User.class);
+    }
+
+    private byte[] getOrder() {
+        return getOrder(WireFormat.JSON);
+    }
+
+    private byte[] getOrder(WireFormat format) {
+        return cache.order(order.getOrderId(), Views.OrderDetails.class, format, () -> {
+            loads.incrementAndGet();
+            return order;
+        }).body();
+    }
+
+    @Test
+    @DisplayName("Повторный запрос отдаёт готовые байты без загрузки и учитывается в метриках")
+    void hitAfterMiss() {
+        // Act
+        byte[] first = getOrder();
+        byte[] second = getOrder();
+
+        // Assert
+        assertThat(second).isSameAs(first);
+        assertThat(new String(first)).contains("\"user\"", "\"orderStatus\":\"PROCESSING\"");
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "rendered-responses").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Изменение заказа сбрасывает его тело")
+    void orderChangeEvictsOrder() {
+        // Arrange
+        getOrder();
+
+        // Act
+        cache.onOrderChanged(OrderChangedEvent.of(order));
+        getOrder();
+
+        // Assert
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Изменение пользователя сбрасывает тела его заказов")
+    void userChangeEvictsOwnedOrders() {
+        // Arrange
+        getOrder();
+        cache.user(user.getUserId(), Views.UserDetails.class, WireFormat.JSON, () -> user);
+
+        // Act
+        cache.onUserChanged(new UserChangedEvent(user.getUserId()));
+        getOrder();
+
+        // Assert
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().evictionCount()).isZero(); // явное удаление — не вытеснение по размеру
+    }
+
+    @Test
+    @DisplayName("Изменение пользователя во время загрузки заказа не оставляет в кэше старый снимок владельца")
+    void userChangeDuringOrderLoadEvictsIt() throws Exception {
+        // Arrange
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<byte[]> load = CompletableFuture.supplyAsync(() -> cache.order(order.getOrderId(),
+                Views.OrderDetails.class, WireFormat.JSON, () -> {
+                    loaded.countDown();
+                    await(release);
+                    return order;
+                }).body());
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Act
+        Thread update = new Thread(() -> cache.onUserChanged(new UserChangedEvent(user.getUserId())));
+        update.start();
+        while (update.isAlive() && update.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+        update.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Assert
+        assertThat(update.isAlive()).isFalse();
+        assertThat(cache.peekOrder(order.getOrderId(), Views.OrderDetails.class, WireFormat.JSON)).isNull();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Тело хранится вместе с ETag и доступно без учёта в статистике")
+    void peekReturnsTaggedBody() {
+        // Arrange
+        assertThat(cache.peekOrder(order.getOrderId(), Views.OrderDetails.class, WireFormat.JSON)).isNull();
+        byte[] body = getOrder();
+
+        // Act
+        Tagged<byte[]> cached = cache.peekOrder(order.getOrderId(), Views.OrderDetails.class, WireFormat.JSON);
+
+        // Assert
+        assertThat(cached.body()).isSameAs(body);
+        assertThat(cached.eTag()).isEqualTo("3.5");
+        assertThat(cache.stats().requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Каждый формат кэшируется отдельно со своим ETag и сбрасывается вместе с остальными")
+    void formatsAreCachedSeparately() {
+        // Arrange
+        byte[] json = getOrder(WireFormat.JSON);
+        byte[] cbor = getOrder(WireFormat.CBOR);
+
+        // Act
+        Tagged<byte[]> cached = cache.peekOrder(order.getOrderId(), Views.OrderDetails.class, WireFormat.CBOR);
+        cache.onOrderChanged(OrderChangedEvent.of(order));
+
+        // Assert
+        assertThat(cbor).isNotEqualTo(json);
+        assertThat(cached.eTag()).isEqualTo("3.5-cbor");
+        assertThat(loads).hasValue(2);
+        assertThat(cache.peekOrder(order.getOrderId(), Views.OrderDetails.class, WireFormat.CBOR)).isNull();
+    }
+}
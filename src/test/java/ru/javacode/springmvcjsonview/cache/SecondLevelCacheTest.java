@@ -0,0 +1,208 @@
+package ru.javacode.springmvcjsonview.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javacode.springmvcjsonview.dto.OrderVersion;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.service.OrderService;
+import ru.javacode.springmvcjsonview.service.UserService;
+import ru.javacode.springmvcjsonview.view.SparseFields;
+import ru.javacode.springmvcjsonview.view.Views;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("l2cache")
+                .email("l2cache@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        order = orderRepository.save(Order.builder()
+                .amount(new BigDecimal("10.00"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .user(user)
+                .build());
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (userRepository.existsById(user.getUserId())) {
+            userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+        }
+    }
+
+    private List<Long> orderIdsOfUser() {
+        return transactionTemplate.execute(status -> userRepository.findById(user.getUserId()).orElseThrow()
+                .getOrders().stream()
+                .map(Order::getOrderId)
+                .toList());
+    }
+
+    @Test
+    @DisplayName("Повторный findById отдаёт заказ и пользователя из кэша без запросов")
+    void findByIdServedFromCache() {
+        // Arrange
+        orderRepository.findById(order.getOrderId());
+        userRepository.findById(user.getUserId());
+        long statements = statistics.getPrepareStatementCount();
+
+        // Act
+        Order cached = orderRepository.findById(order.getOrderId()).orElseThrow();
+        userRepository.findById(user.getUserId()).orElseThrow();
+
+        // Assert
+        assertThat(cached.getAmount()).isEqualByComparingTo("10.00");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getDomainDataRegionStatistics(Order.CACHE_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Сущность из кэша получает ассоциации графа ?fields= без запросов к базе")
+    void sparseGraphInitializedFromCache() {
+        // Arrange
+        SparseFields fields = SparseFields.parse("userId,orders.amount");
+        userService.getUserById(user.getUserId(), Views.UserDetails.class, fields);
+        long statements = statistics.getPrepareStatementCount();
+
+        // Act
+        User cached = userService.getUserById(user.getUserId(), Views.UserDetails.class, fields);
+
+        // Assert
+        assertThat(Hibernate.isInitialized(cached.getOrders())).isTrue();
+        assertThat(cached.getOrders()).extracting(Order::getAmount).containsExactly(new BigDecimal("10.00"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    @DisplayName("После updateOrder findById не возвращает закэшированное прежнее состояние")
+    void updateOrderNeverServesStale() {
+        // Arrange
+        Order before = orderRepository.findById(order.getOrderId()).orElseThrow();
+        OrderVersion version = orderService.getOrderVersion(order.getOrderId());
+
+        // Act
+        orderService.updateOrder(order.getOrderId(), Order.builder()
+                .amount(new BigDecimal("25.00"))
+                .orderStatus(OrderStatus.DELIVERY)
+                .build(), version);
+        Order after = orderRepository.findById(order.getOrderId()).orElseThrow();
+
+        // Assert
+        assertThat(after.getAmount()).isEqualByComparingTo("25.00");
+        assertThat(after.getOrderStatus()).isEqualTo(OrderStatus.DELIVERY);
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("updateOrder вытесняет из кэша только изменённый заказ: соседний и коллекция владельца остаются")
+    void updateOrderKeepsUnrelatedEntries() {
+        // Arrange
+        Order unrelated = orderRepository.save(Order.builder()
+                .amount(new BigDecimal("7.00"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .user(user)
+                .build());
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictAll();
+        orderRepository.findById(unrelated.getOrderId());
+        assertThat(orderIdsOfUser()).containsExactlyInAnyOrder(order.getOrderId(), unrelated.getOrderId());
+
+        // Act
+        orderService.updateOrder(order.getOrderId(), Order.builder()
+                .amount(new BigDecimal("25.00"))
+                .orderStatus(OrderStatus.DELIVERY)
+                .build(), null);
+
+        // Assert
+        assertThat(cache.containsEntity(Order.class, unrelated.getOrderId())).isTrue();
+        assertThat(cache.containsCollection(User.class.getName() + ".orders", user.getUserId())).isTrue();
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(orderRepository.findById(unrelated.getOrderId()).orElseThrow().getAmount())
+                .isEqualByComparingTo("7.00");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    @DisplayName("После deleteUser ни пользователь, ни его заказы не достаются из кэша")
+    void deleteUserNeverServesStale() {
+        // Arrange
+        assertThat(orderIdsOfUser()).containsExactly(order.getOrderId());
+        orderRepository.findById(order.getOrderId());
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getUserId())).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(Order.class, order.getOrderId())).isTrue();
+
+        // Act
+        userService.deleteUser(user.getUserId());
+
+        // Assert
+        assertThat(userRepository.findById(user.getUserId())).isEmpty();
+        assertThat(orderRepository.findById(order.getOrderId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Новый заказ виден в закэшированной коллекции заказов владельца")
+    void createOrderEvictsOwnerCollection() {
+        // Arrange
+        assertThat(orderIdsOfUser()).containsExactly(order.getOrderId());
+
+        // Act
+        Order created = orderService.createOrder(Order.builder()
+                .amount(new BigDecimal("5.00"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .user(User.builder().userId(user.getUserId()).build())
+                .build());
+
+        // Assert
+        assertThat(orderIdsOfUser()).containsExactlyInAnyOrder(order.getOrderId(), created.getOrderId());
+    }
+}
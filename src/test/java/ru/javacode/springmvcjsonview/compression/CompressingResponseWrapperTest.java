@@ -0,0 +1,38 @@
+package ru.javacode.springmvcjsonview.compression;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompressingResponseWrapperTest {
+
+    @Test
+    @DisplayName("Неблокирующая запись: WriteListener и isReady() передаются потоку контейнера")
+    void writeListenerDelegates() throws Exception {
+        // Arrange
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ServletOutputStream target = mock(ServletOutputStream.class);
+        when(response.getOutputStream()).thenReturn(target);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(target.isReady()).thenReturn(false);
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, ContentCoding.GZIP, 6, 1,
+                false, () -> true, false, "/api/v1/orders/export", null);
+        WriteListener listener = mock(WriteListener.class);
+
+        // Act
+        ServletOutputStream out = wrapper.getOutputStream();
+        out.setWriteListener(listener);
+        out.write('x'); // потоковый ответ сразу переходит к сжатию в поток контейнера
+
+        // Assert
+        verify(target).setWriteListener(listener);
+        assertThat(out.isReady()).isFalse();
+    }
+}
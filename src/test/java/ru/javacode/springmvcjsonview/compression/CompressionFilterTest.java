@@ -0,0 +1,154 @@
+package ru.javacode.springmvcjsonview.compression;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "SUPER_ADMIN")
+class CompressionFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CompressedBodyCache compressedBodyCache;
+
+    private User user;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("compression")
+                .email("compression@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        for (int i = 0; i < 50; i++) {
+            order = orderRepository.save(Order.builder()
+                    .amount(new BigDecimal("10.00"))
+                    .orderStatus(OrderStatus.PROCESSING)
+                    .user(user)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        return new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes();
+    }
+
+    @Test
+    @DisplayName("Большой ответ сжимается gzip, ETag помечается кодеком, тело разжимается в исходный JSON")
+    void getUserById_Gzip() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.50.0." + order.getOrderId() + "-gzip\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn();
+
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        assertThat(result.getResponse().getContentLength()).isEqualTo(compressed.length);
+        JsonNode body = objectMapper.readTree(gunzip(compressed));
+        assertThat(body.path("orders")).hasSize(50);
+    }
+
+    @Test
+    @DisplayName("Повторный запрос берёт сжатое тело из кэша, а сжатый ETag даёт 304")
+    void getUserById_PrecompressedAndNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andReturn();
+        long hits = compressedBodyCache.stats().hitCount();
+
+        MvcResult second = mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(compressedBodyCache.stats().hitCount()).isEqualTo(hits + 1);
+        assertThat(second.getResponse().getContentAsByteArray())
+                .isEqualTo(first.getResponse().getContentAsByteArray());
+        mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    @DisplayName("Ответ меньше порога отдаётся без сжатия")
+    void getOrderById_BelowThreshold() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, zstd"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.0\""));
+    }
+
+    @Test
+    @DisplayName("Потоковый список сжимается zstd на лету")
+    void getAllOrders_ZstdStream() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/orders")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, zstd"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "zstd"))
+                .andReturn();
+
+        byte[] body = new ZstdInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        assertThat(objectMapper.readTree(body).size()).isGreaterThanOrEqualTo(50);
+    }
+}
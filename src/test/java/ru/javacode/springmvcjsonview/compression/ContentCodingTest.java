@@ -0,0 +1,49 @@
+package ru.javacode.springmvcjsonview.compression;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentCodingTest {
+
+    private static final Set<ContentCoding> ALL = EnumSet.allOf(ContentCoding.class);
+
+    @Test
+    @DisplayName("Без Accept-Encoding и для identity сжатие не выбирается")
+    void negotiate_Identity() {
+        assertThat(ContentCoding.negotiate(null, ALL)).isNull();
+        assertThat(ContentCoding.negotiate("identity", ALL)).isNull();
+        assertThat(ContentCoding.negotiate("br", ALL)).isNull();
+    }
+
+    @Test
+    @DisplayName("Выбирается кодек с наибольшим q, при равенстве — zstd")
+    void negotiate_Quality() {
+        assertThat(ContentCoding.negotiate("gzip, deflate, br, zstd", ALL)).isEqualTo(ContentCoding.ZSTD);
+        assertThat(ContentCoding.negotiate("gzip, zstd;q=0.5", ALL)).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("zstd;q=0, *", ALL)).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("gzip, zstd", EnumSet.of(ContentCoding.GZIP))).isEqualTo(ContentCoding.GZIP);
+    }
+
+    @Test
+    @DisplayName("Оба кодека обратимы")
+    void encode_RoundTrip() throws IOException {
+        byte[] body = "{\"orderId\":1,\"amount\":10.00}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        byte[] gzip = ContentCoding.GZIP.encode(body, 6);
+        byte[] zstd = ContentCoding.ZSTD.encode(body, 3);
+
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip)).readAllBytes()).isEqualTo(body);
+        assertThat(new ZstdInputStream(new ByteArrayInputStream(zstd)).readAllBytes()).isEqualTo(body);
+        assertThat(gzip.length).isLessThan(body.length / 10);
+    }
+}
@@ -0,0 +1,177 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "SUPER_ADMIN")
+class ConditionalRequestsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("etag")
+                .email("etag@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        order = orderRepository.save(Order.builder()
+                .amount(new BigDecimal("10.00"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .user(user)
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    private String orderJson() {
+        return """
+                {"amount": 25.00, "orderStatus": "DELIVERY", "user": {"userId": %d}}""".formatted(user.getUserId());
+    }
+
+    @Test
+    @DisplayName("GET /orders/{id} отдаёт строгий ETag из версий заказа и владельца")
+    void getOrderById_ReturnsETag() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.0\""));
+    }
+
+    @Test
+    @DisplayName("If-None-Match без готового тела отвечает 304 одной проекцией, без загрузки заказа")
+    void getOrderById_NotModifiedWithoutLoadingRow() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0.0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.0\""))
+                .andExpect(content().string(""));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("If-None-Match с готовым телом отвечает 304 без обращения к базе")
+    void getOrderById_NotModifiedFromCache() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId()))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0.0\""))
+                .andExpect(status().isNotModified());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("PUT с актуальным If-Match обновляет заказ без SELECT сущности и возвращает новый ETag")
+    void updateOrder_IfMatch() throws Exception {
+        mockMvc.perform(put("/api/v1/orders/{orderId}", order.getOrderId())
+                        .header(HttpHeaders.IF_MATCH, "\"0.0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.0\""))
+                .andExpect(jsonPath("$.orderStatus", is("DELIVERY")));
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(orderRepository.findById(order.getOrderId()).orElseThrow().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("PUT с устаревшим If-Match отвечает 412 и не меняет заказ")
+    void updateOrder_StaleIfMatch() throws Exception {
+        mockMvc.perform(put("/api/v1/orders/{orderId}", order.getOrderId())
+                        .header(HttpHeaders.IF_MATCH, "\"5.0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson()))
+                .andExpect(status().isPreconditionFailed());
+
+        Order unchanged = orderRepository.findById(order.getOrderId()).orElseThrow();
+        assertThat(unchanged.getVersion()).isZero();
+        assertThat(unchanged.getOrderStatus()).isEqualTo(OrderStatus.PROCESSING);
+    }
+
+    @Test
+    @DisplayName("Новый заказ меняет ETag пользователя, а старый If-Match на PUT /users/{id} отвечает 412")
+    void userETagFollowsOrders() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/api/v1/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"amount": 5.00, "orderStatus": "PROCESSING", "user": {"userId": %d}}"""
+                                .formatted(user.getUserId())))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.orders", hasSize(2)));
+        mockMvc.perform(put("/api/v1/users/{userId}", user.getUserId())
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "etag2", "email": "etag@example.com", "password": "password"}"""))
+                .andExpect(status().isPreconditionFailed());
+    }
+}
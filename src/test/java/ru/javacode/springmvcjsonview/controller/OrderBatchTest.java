@@ -0,0 +1,131 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.batch.chunk-size=3",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "USER")
+class OrderBatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("batch")
+                .email("batch@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    private String order(Object amount, Long userId) {
+        return "{\"amount\":" + amount + ",\"orderStatus\":\"PROCESSING\",\"user\":{\"userId\":" + userId + "}}";
+    }
+
+    @Test
+    @DisplayName("Массив заказов вставляется порциями, некорректные элементы отклоняются по отдельности")
+    void createsValidOrdersAndRejectsInvalid() throws Exception {
+        // Arrange
+        String body = "[" + String.join(",",
+                order("10.00", user.getUserId()),
+                order(null, user.getUserId()),
+                order("11.00", user.getUserId()),
+                order("12.00", Long.MAX_VALUE),
+                order("13.00", user.getUserId())) + "]";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/orders/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("не указана сумма заказа"))
+                .andExpect(jsonPath("$[2].id").isNumber())
+                .andExpect(jsonPath("$[3].error").value("User with id " + Long.MAX_VALUE + " not found"))
+                .andExpect(jsonPath("$[4].index").value(4))
+                .andExpect(jsonPath("$[4].id").isNumber());
+
+        assertThat(orderRepository.findAll())
+                .filteredOn(order -> order.getUser().getUserId().equals(user.getUserId()))
+                .hasSize(3);
+        // две порции: по проверке владельцев и одной пакетной вставке на порцию
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(8);
+    }
+
+    @Test
+    @DisplayName("NDJSON принимается построчно")
+    void acceptsNdjson() throws Exception {
+        String body = order("10.00", user.getUserId()) + "\n" + order("11.00", user.getUserId()) + "\n";
+
+        mockMvc.perform(post("/api/v1/orders/batch").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].id").isNumber());
+    }
+
+    @Test
+    @DisplayName("Ошибка разбора посреди потока откатывает уже вставленные порции")
+    void malformedInputRollsBack() throws Exception {
+        // Arrange
+        String body = "[" + String.join(",",
+                order("10.00", user.getUserId()),
+                order("11.00", user.getUserId()),
+                order("12.00", user.getUserId()),
+                order("13.00", user.getUserId())) + ",{\"amount\":}]";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/orders/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+
+        assertThat(orderRepository.findAll())
+                .noneMatch(order -> order.getUser().getUserId().equals(user.getUserId()));
+    }
+}
@@ -1,6 +1,7 @@
 package ru.javacode.springmvcjsonview.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -8,24 +9,34 @@ import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.javacode.springmvcjsonview.cache.RenderedResponseCache;
+import ru.javacode.springmvcjsonview.config.JacksonConfig;
+import ru.javacode.springmvcjsonview.dto.Tagged;
 import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
 import ru.javacode.springmvcjsonview.model.Order;
 import ru.javacode.springmvcjsonview.model.OrderStatus;
 import ru.javacode.springmvcjsonview.model.User;
 import ru.javacode.springmvcjsonview.service.OrderService;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -33,6 +44,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(OrderController.class)
+@Import(JacksonConfig.class)
 class OrderControllerTest {
 
     @Autowired
@@ -44,6 +56,23 @@ class OrderControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ViewCompiler viewCompiler;
+
+    @MockBean
+    private RenderedResponseCache renderedResponseCache;
+
+    // Кэш пропускает запросы насквозь, чтобы тесты не зависели друг от друга
+    @BeforeEach
+    void setUpRenderedResponseCache() {
+        when(renderedResponseCache.order(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Supplier<Order> loader = invocation.getArgument(3);
+            byte[] body = viewCompiler.writerFor(Order.class, invocation.<Class<?>>getArgument(1))
+                    .writeValueAsBytes(loader.get());
+            return new Tagged<>(body, "0.0");
+        });
+    }
+
     // Вспомогательный метод для создания тестового заказа
     private Order createTestOrder() {
         User user = User.builder()
@@ -120,7 +149,8 @@ class OrderControllerTest {
                     .user(existingOrder.getUser())
                     .build();
 
-            when(orderService.updateOrder(ArgumentMatchers.eq(orderId), any(Order.class))).thenReturn(updatedOrder);
+            when(orderService.updateOrder(ArgumentMatchers.eq(orderId), any(Order.class), ArgumentMatchers.isNull()))
+                    .thenReturn(new Tagged<>(updatedOrder, "1.0"));
 
             mockMvc.perform(put("/api/v1/orders/{orderId}", orderId)
                             .contentType(MediaType.APPLICATION_JSON)
@@ -142,7 +172,7 @@ class OrderControllerTest {
                     .user(null)
                     .build();
 
-            when(orderService.updateOrder(ArgumentMatchers.eq(orderId), any(Order.class)))
+            when(orderService.updateOrder(ArgumentMatchers.eq(orderId), any(Order.class), ArgumentMatchers.isNull()))
                     .thenThrow(new ResourceNotFoundException("Order with id " + orderId + " not found"));
 
             mockMvc.perform(put("/api/v1/orders/{orderId}", orderId)
@@ -243,9 +273,17 @@ class OrderControllerTest {
             Order order2 = createTestOrder();
             List<Order> orders = Arrays.asList(order1, order2);
 
-            when(orderService.getAllOrders()).thenReturn(orders);
+            doAnswer(invocation -> {
+                Consumer<Order> action = invocation.getArgument(0);
+                orders.forEach(action);
+                return null;
+            }).when(orderService).streamAllOrders(any());
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/v1/orders"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
 
-            mockMvc.perform(get("/api/v1/orders"))
+            mockMvc.perform(asyncDispatch(mvcResult))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("$", hasSize(2)))
@@ -262,12 +300,16 @@ class OrderControllerTest {
         @Test
         @DisplayName("Успешное получение пустого списка заказов")
         void getAllOrders_EmptyList() throws Exception {
-            when(orderService.getAllOrders()).thenReturn(Collections.emptyList());
+            doNothing().when(orderService).streamAllOrders(any());
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/v1/orders"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
 
-            mockMvc.perform(get("/api/v1/orders"))
+            mockMvc.perform(asyncDispatch(mvcResult))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("$", hasSize(0)));
         }
     }
-}
\ No newline at end of file
+}
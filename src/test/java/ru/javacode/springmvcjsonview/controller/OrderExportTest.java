@@ -0,0 +1,204 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.service.OrderService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"app.export.chunk-size=2", "app.compression.min-size=64B"})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "USER")
+class OrderExportTest {
+
+    private static final int GZIP_HEADER_LENGTH = 10;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @SpyBean
+    private OrderService orderService;
+
+    private User user;
+    private final List<Order> orders = new ArrayList<>();
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("export")
+                .email("export@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        for (int i = 0; i < 5; i++) {
+            Order order = orderRepository.save(Order.builder()
+                    .amount(new BigDecimal("10.00"))
+                    .orderStatus(OrderStatus.PROCESSING)
+                    .user(user)
+                    .build());
+            orders.add(order);
+            orderIds.add(order.getOrderId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    private MvcResult export(String acceptEncoding) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/orders/export")
+                        .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+    }
+
+    private List<JsonNode> lines(String body) throws Exception {
+        assertThat(body).endsWith("\n");
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    @DisplayName("Каждый заказ выгружается отдельной строкой в OrderSummary")
+    void exportsOneOrderPerLine() throws Exception {
+        // Act
+        MvcResult result = export("identity");
+
+        // Assert
+        List<JsonNode> lines = lines(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertThat(lines).extracting(line -> line.get("orderId").asLong()).containsSubsequence(orderIds);
+        assertThat(lines).allSatisfy(line -> assertThat(line.has("user")).isFalse());
+    }
+
+    @Test
+    @DisplayName("Сжатая выгрузка распаковывается в те же строки")
+    void exportsGzip() throws Exception {
+        // Act
+        MvcResult result = export("gzip");
+
+        // Assert
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        byte[] body;
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            body = in.readAllBytes();
+        }
+        assertThat(lines(new String(body, StandardCharsets.UTF_8)))
+                .extracting(line -> line.get("orderId").asLong())
+                .containsSubsequence(orderIds);
+    }
+
+    @Test
+    @DisplayName("Сжатая выгрузка уходит клиенту порциями, не дожидаясь конца тела")
+    void gzipChunksArriveBeforeCompletion() throws Exception {
+        // Arrange: источник отдаёт первую порцию (chunk-size=2) и ждёт, пока тест её не увидит
+        CountDownLatch firstChunkSeen = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Consumer<Order> action = invocation.getArgument(0);
+            action.accept(orders.get(0));
+            action.accept(orders.get(1));
+            assertThat(firstChunkSeen.await(10, TimeUnit.SECONDS)).isTrue();
+            orders.subList(2, orders.size()).forEach(action);
+            return null;
+        }).when(orderService).streamAllOrders(any());
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/orders/export")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> inflateAvailable(mvcResult.getResponse().getContentAsByteArray()).endsWith("\n"));
+        String firstChunk = inflateAvailable(mvcResult.getResponse().getContentAsByteArray());
+        firstChunkSeen.countDown();
+        MvcResult result = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Assert
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(lines(firstChunk)).extracting(line -> line.get("orderId").asLong())
+                .containsExactly(orderIds.get(0), orderIds.get(1));
+        assertThat(lines(inflateAvailable(result.getResponse().getContentAsByteArray())))
+                .extracting(line -> line.get("orderId").asLong())
+                .containsExactlyElementsOf(orderIds);
+    }
+
+    /**
+     * Разжимает то, что уже дошло из gzip-потока; незавершённый поток (без трейлера) не считается ошибкой.
+     */
+    private static String inflateAvailable(byte[] gzip) throws DataFormatException {
+        if (gzip.length <= GZIP_HEADER_LENGTH) {
+            return "";
+        }
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(gzip, GZIP_HEADER_LENGTH, gzip.length - GZIP_HEADER_LENGTH);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inflater.inflate(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        inflater.end();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,153 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.javacode.springmvcjsonview.dto.OrderStats;
+import ru.javacode.springmvcjsonview.dto.OrderStatusTransition;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.service.OrderService;
+import ru.javacode.springmvcjsonview.service.UserService;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "MODERATOR")
+class OrderStatsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("stats")
+                .email("stats@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (userRepository.existsById(user.getUserId())) {
+            userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+        }
+    }
+
+    private Order create(String amount, OrderStatus status) {
+        return orderService.createOrder(Order.builder()
+                .amount(new BigDecimal(amount))
+                .orderStatus(status)
+                .user(User.builder().userId(user.getUserId()).build())
+                .build());
+    }
+
+    private OrderStats.Totals processingTotals() {
+        return orderService.getStatistics(null).byStatus().get(OrderStatus.PROCESSING);
+    }
+
+    @Test
+    @DisplayName("Итоги следуют за созданием, изменением, сменой статуса и удалением заказов")
+    void totalsFollowChanges() throws Exception {
+        // Arrange
+        OrderStats.Totals before = processingTotals();
+
+        // Act
+        Order first = create("10.50", OrderStatus.PROCESSING);
+        Order second = create("4.50", OrderStatus.PROCESSING);
+        Order third = create("1.00", OrderStatus.PROCESSING);
+        orderService.updateOrder(first.getOrderId(), Order.builder()
+                .amount(new BigDecimal("20.00"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .build(), null);
+        orderService.transitionStatus(new OrderStatusTransition(List.of(second.getOrderId()), null, null,
+                OrderStatus.DELIVERY));
+        orderService.deleteOrder(third.getOrderId());
+
+        // Assert
+        mockMvc.perform(get("/api/v1/orders/stats").param("userId", user.getUserId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byUser.length()").value(1))
+                .andExpect(jsonPath("$.byUser.%d.count".formatted(user.getUserId())).value(2))
+                .andExpect(jsonPath("$.byUser.%d.amount".formatted(user.getUserId())).value(24.50));
+        OrderStats.Totals after = processingTotals();
+        assertThat(after.count() - before.count()).isEqualTo(1);
+        assertThat(after.amount().subtract(before.amount())).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    @DisplayName("Смена статуса всех заказов владельца и его удаление снимают его итоги")
+    void ownerTransitionAndDeletion() {
+        // Arrange
+        create("3.00", OrderStatus.PROCESSING);
+        create("7.00", OrderStatus.PROCESSING);
+        OrderStats.Totals before = orderService.getStatistics(null).byStatus().get(OrderStatus.CANCELLED);
+
+        // Act
+        orderService.transitionStatus(new OrderStatusTransition(null, OrderStatus.PROCESSING, user.getUserId(),
+                OrderStatus.CANCELLED));
+        OrderStats.Totals cancelled = orderService.getStatistics(null).byStatus().get(OrderStatus.CANCELLED);
+        userService.deleteUser(user.getUserId());
+
+        // Assert
+        assertThat(cancelled.count() - before.count()).isEqualTo(2);
+        assertThat(cancelled.amount().subtract(before.amount())).isEqualByComparingTo("10.00");
+        assertThat(orderService.getStatistics(null).byStatus().get(OrderStatus.CANCELLED)).isEqualTo(before);
+        assertThat(orderService.getStatistics(user.getUserId()).byUser()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("GET /orders/stats не обращается к базе")
+    void statsWithoutQueries() throws Exception {
+        // Arrange
+        create("1.00", OrderStatus.DELIVERY);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        mockMvc.perform(get("/api/v1/orders/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byStatus.DELIVERY.count").exists())
+                .andExpect(jsonPath("$.byUser.%d.count".formatted(user.getUserId())).value(1));
+
+        // Assert
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getConnectCount()).isZero();
+    }
+}
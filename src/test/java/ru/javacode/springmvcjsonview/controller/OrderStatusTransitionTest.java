@@ -0,0 +1,124 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "MODERATOR")
+class OrderStatusTransitionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User user;
+    private Order processing;
+    private Order delivery;
+    private Order cancelled;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("transition")
+                .email("transition@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        processing = save(OrderStatus.PROCESSING);
+        delivery = save(OrderStatus.DELIVERY);
+        cancelled = save(OrderStatus.CANCELLED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    private Order save(OrderStatus status) {
+        return orderRepository.save(Order.builder()
+                .amount(new BigDecimal("10.00"))
+                .orderStatus(status)
+                .user(user)
+                .build());
+    }
+
+    private OrderStatus statusOf(Order order) {
+        return orderRepository.findById(order.getOrderId()).orElseThrow().getOrderStatus();
+    }
+
+    @Test
+    @DisplayName("По id меняются только заказы с допустимым исходным статусом, кэш ответа сбрасывается")
+    void transitionByIds() throws Exception {
+        // Arrange
+        mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId()))
+                .andExpect(jsonPath("$.orders[0].orderStatus").value("PROCESSING"));
+        String body = "{\"orderIds\":[" + processing.getOrderId() + "," + cancelled.getOrderId()
+                + "],\"targetStatus\":\"DELIVERY\"}";
+
+        // Act
+        mockMvc.perform(patch("/api/v1/orders/status").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+
+        // Assert
+        assertThat(statusOf(processing)).isEqualTo(OrderStatus.DELIVERY);
+        assertThat(statusOf(cancelled)).isEqualTo(OrderStatus.CANCELLED);
+        mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId()))
+                .andExpect(jsonPath("$.orders[0].orderStatus").value("DELIVERY"));
+    }
+
+    @Test
+    @DisplayName("По текущему статусу и владельцу меняются все подходящие заказы")
+    void transitionByOwner() throws Exception {
+        String body = "{\"currentStatus\":\"DELIVERY\",\"userId\":" + user.getUserId()
+                + ",\"targetStatus\":\"CANCELLED\"}";
+
+        mockMvc.perform(patch("/api/v1/orders/status").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+
+        assertThat(statusOf(delivery)).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(statusOf(processing)).isEqualTo(OrderStatus.PROCESSING);
+    }
+
+    @Test
+    @DisplayName("Запрос без фильтра или с недопустимым целевым статусом отклоняется")
+    void invalidRequest() throws Exception {
+        mockMvc.perform(patch("/api/v1/orders/status").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetStatus\":\"DELIVERY\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("укажите либо orderIds, либо currentStatus и userId"));
+        mockMvc.perform(patch("/api/v1/orders/status").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orderIds\":[" + delivery.getOrderId() + "],\"targetStatus\":\"PROCESSING\"}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,158 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "SUPER_ADMIN")
+class SparseFieldsRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("sparse")
+                .email("sparse@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        for (int i = 0; i < 2; i++) {
+            order = orderRepository.save(Order.builder()
+                    .amount(new BigDecimal("10.00"))
+                    .orderStatus(OrderStatus.PROCESSING)
+                    .user(user)
+                    .build());
+        }
+        entityManagerFactory.getCache().evictAll(); // запросы считаются от холодного кэша второго уровня
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    @Test
+    @DisplayName("GET /orders/{id}?fields= отдаёт только запрошенные поля без ETag и не загружает пользователя")
+    void getOrderById_SkipsUnrequestedAssociation() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId()).param("fields", "orderId,amount"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(content().json("{\"orderId\":" + order.getOrderId() + ",\"amount\":10.00}", true));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("GET /users/{id}?fields= с вложенным полем загружает заказы тем же запросом")
+    void getUserById_NestedField() throws Exception {
+        mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId()).param("fields", "userId,orders.amount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").doesNotExist())
+                .andExpect(jsonPath("$.orders", hasSize(2)))
+                .andExpect(jsonPath("$.orders[0].amount").value(10.00))
+                .andExpect(jsonPath("$.orders[0].orderId").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Страница заказов с ?fields= сужает OrderSummary")
+    void getOrdersPage_NarrowsView() throws Exception {
+        mockMvc.perform(get("/api/v1/orders").param("limit", "10").param("fields", "orderId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orderId").exists())
+                .andExpect(jsonPath("$[0].amount").doesNotExist())
+                .andExpect(jsonPath("$[0].orderStatus").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Потоковый GET /users с ?fields= пишет только запрошенные поля")
+    void getAllUsers_NarrowsView() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/users").param("fields", "name"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").exists())
+                .andExpect(jsonPath("$[0].userId").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Поле вне view отклоняется с 400, а GET по id — ещё до обращения к базе")
+    void hiddenField_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId()).param("fields", "orderId,password"))
+                .andExpect(status().isBadRequest());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        mockMvc.perform(get("/api/v1/users").param("limit", "10").param("fields", "orders"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST с ?fields= не сужает ответ и не превращает выполненное создание в 400")
+    void createOrder_FieldsIgnored() throws Exception {
+        long before = orderRepository.count();
+
+        mockMvc.perform(post("/api/v1/orders")
+                        .param("fields", "orderId,password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":10.00,\"orderStatus\":\"PROCESSING\",\"user\":{\"userId\":"
+                                + user.getUserId() + "}}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.orderId").exists())
+                .andExpect(jsonPath("$.amount").exists());
+        assertThat(orderRepository.count()).isEqualTo(before + 1);
+    }
+}
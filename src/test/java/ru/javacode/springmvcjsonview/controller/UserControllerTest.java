@@ -1,6 +1,7 @@
 package ru.javacode.springmvcjsonview.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -8,12 +9,18 @@ import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.javacode.springmvcjsonview.cache.RenderedResponseCache;
+import ru.javacode.springmvcjsonview.config.JacksonConfig;
+import ru.javacode.springmvcjsonview.dto.Tagged;
 import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
 import ru.javacode.springmvcjsonview.model.Order;
 import ru.javacode.springmvcjsonview.model.User;
 import ru.javacode.springmvcjsonview.service.UserService;
+import ru.javacode.springmvcjsonview.view.ViewCompiler;
 import ru.javacode.springmvcjsonview.view.Views;
 
 import java.util.Arrays;
@@ -21,11 +28,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -33,6 +44,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import(JacksonConfig.class)
 class UserControllerTest {
 
     @Autowired
@@ -44,6 +56,23 @@ class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ViewCompiler viewCompiler;
+
+    @MockBean
+    private RenderedResponseCache renderedResponseCache;
+
+    // Кэш пропускает запросы насквозь, чтобы тесты не зависели друг от друга
+    @BeforeEach
+    void setUpRenderedResponseCache() {
+        when(renderedResponseCache.user(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Supplier<User> loader = invocation.getArgument(3);
+            byte[] body = viewCompiler.writerFor(User.class, invocation.<Class<?>>getArgument(1))
+                    .writeValueAsBytes(loader.get());
+            return new Tagged<>(body, "0.0");
+        });
+    }
+
     // Вспомогательный метод для создания тестового пользователя
     private User createTestUser() {
         return User.builder()
@@ -109,7 +138,8 @@ class UserControllerTest {
                     .orders(Collections.emptyList())
                     .build();
 
-            when(userService.updateUser(ArgumentMatchers.eq(userId), any(User.class))).thenReturn(updatedUser);
+            when(userService.updateUser(ArgumentMatchers.eq(userId), any(User.class), ArgumentMatchers.isNull()))
+                    .thenReturn(new Tagged<>(updatedUser, "1.0"));
 
             mockMvc.perform(put("/api/v1/users/{userId}", userId)
                             .contentType(MediaType.APPLICATION_JSON)
@@ -131,7 +161,7 @@ class UserControllerTest {
                     .email("updated@example.com")
                     .build();
 
-            when(userService.updateUser(ArgumentMatchers.eq(userId), any(User.class)))
+            when(userService.updateUser(ArgumentMatchers.eq(userId), any(User.class), ArgumentMatchers.isNull()))
                     .thenThrow(new ResourceNotFoundException("User with id " + userId + " not found"));
 
             mockMvc.perform(put("/api/v1/users/{userId}", userId)
@@ -243,9 +273,17 @@ class UserControllerTest {
                     .build();
             List<User> users = Arrays.asList(user1, user2);
 
-            when(userService.getAllUsers()).thenReturn(users);
+            doAnswer(invocation -> {
+                Consumer<User> action = invocation.getArgument(0);
+                users.forEach(action);
+                return null;
+            }).when(userService).streamAllUsers(any());
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/v1/users"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
 
-            mockMvc.perform(get("/api/v1/users"))
+            mockMvc.perform(asyncDispatch(mvcResult))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("$", hasSize(2)))
@@ -262,12 +300,16 @@ class UserControllerTest {
         @Test
         @DisplayName("Успешное получение пустого списка пользователей")
         void getAllUsers_EmptyList() throws Exception {
-            when(userService.getAllUsers()).thenReturn(Collections.emptyList());
+            doNothing().when(userService).streamAllUsers(any());
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/v1/users"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
 
-            mockMvc.perform(get("/api/v1/users"))
+            mockMvc.perform(asyncDispatch(mvcResult))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("$", hasSize(0)));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "SUPER_ADMIN")
+class ViewFetchPlanSqlCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("fetchplan")
+                .email("fetchplan@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        for (int i = 0; i < 3; i++) {
+            order = orderRepository.save(Order.builder()
+                    .amount(new BigDecimal("10.00"))
+                    .orderStatus(OrderStatus.PROCESSING)
+                    .user(user)
+                    .build());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    @Test
+    @DisplayName("GET /orders/{id} с OrderDetails загружает заказ и пользователя одним запросом")
+    void getOrderById_OneJoinedQuery() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.user").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GET /orders?limit= с OrderSummary не обращается к users")
+    void getOrdersPage_NeverLoadsUsers() throws Exception {
+        mockMvc.perform(get("/api/v1/orders").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].user").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Потоковый GET /orders с OrderSummary выполняет один запрос")
+    void getAllOrders_OneQuery() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/orders"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].user").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("GET /users/{id} с UserDetails загружает пользователя и заказы одним запросом")
+    void getUserById_OneJoinedQuery() throws Exception {
+        mockMvc.perform(get("/api/v1/users/{userId}", user.getUserId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(3)));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GET /users?limit= с UserSummary не загружает заказы")
+    void getUsersPage_NeverLoadsOrders() throws Exception {
+        mockMvc.perform(get("/api/v1/users").param("limit", "10"))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(Order.class.getName()).getLoadCount()).isZero();
+    }
+}
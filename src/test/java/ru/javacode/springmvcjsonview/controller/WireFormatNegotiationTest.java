@@ -0,0 +1,162 @@
+package ru.javacode.springmvcjsonview.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.view.WireFormat;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "SUPER_ADMIN")
+class WireFormatNegotiationTest {
+
+    private static final MediaType SMILE = MediaType.valueOf(WireFormat.SMILE_VALUE);
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User user;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("wireformat")
+                .email("wireformat@example.com")
+                .password("password")
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        order = orderRepository.save(Order.builder()
+                .amount(new BigDecimal("10.00"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .user(user)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // заказы удаляются каскадом
+    }
+
+    @Test
+    @DisplayName("GET /orders/{id} в CBOR сохраняет OrderDetails и помечает ETag форматом")
+    void getOrderById_Cbor() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0.0-cbor\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        JsonNode body = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body.path("orderId").asLong()).isEqualTo(order.getOrderId());
+        assertThat(body.has("user")).isTrue();
+    }
+
+    @Test
+    @DisplayName("ETag одного формата не совпадает с представлением в другом")
+    void getOrderById_ETagIsPerFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId())
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0.0\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/orders/{orderId}", order.getOrderId())
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0.0-cbor\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Страница заказов в Smile не содержит пользователя, как и в JSON")
+    void getOrdersPage_SmileKeepsView() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/orders").param("limit", "50").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+
+        JsonNode body = smileMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body.isArray()).isTrue();
+        assertThat(body).isNotEmpty();
+        assertThat(body.get(0).has("orderId")).isTrue();
+        assertThat(body.get(0).has("user")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Потоковый GET /users в CBOR пишет массив UserSummary")
+    void getAllUsers_CborStream() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/users").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode body = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body.isArray()).isTrue();
+        assertThat(body).allSatisfy(node -> assertThat(node.has("orders")).isFalse());
+    }
+
+    @Test
+    @DisplayName("POST /orders принимает тело в Smile и отвечает в Smile")
+    void createOrder_SmileBody() throws Exception {
+        byte[] request = smileMapper.writeValueAsBytes(Map.of(
+                "amount", 25.00,
+                "orderStatus", "DELIVERY",
+                "user", Map.of("userId", user.getUserId())));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/orders")
+                        .contentType(SMILE)
+                        .accept(SMILE)
+                        .content(request))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+
+        JsonNode body = smileMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertThat(body.path("orderStatus").asText()).isEqualTo("DELIVERY");
+        assertThat(body.has("user")).isFalse();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.javacode.springmvcjsonview.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.javacode.springmvcjsonview.config.IdSequenceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class V2__EntityVersionsTest {
+
+    private final String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .javaMigrations(new V3__PooledLoIdSequences(new IdSequenceProperties(50)))
+                .load()
+                .migrate();
+    }
+
+    private long query(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    @Test
+    @DisplayName("База, созданная ddl-auto до появления версий, получает обязательные колонки версий с нулём")
+    void existingSchemaWithoutVersions() throws Exception {
+        // Arrange: схема из V1, но созданная ddl-auto, поэтому Flyway примет её за baseline
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    create table users (user_id bigint not null primary key, user_name varchar(255) not null,
+                    user_email varchar(255) not null, user_password varchar(255) not null,
+                    user_role varchar(255) not null, is_account_non_locked boolean not null,
+                    failed_attempts integer, lock_time bigint)""");
+            statement.execute("""
+                    create table orders (order_id bigint not null primary key, order_amount numeric(38, 2) not null,
+                    order_status varchar(255) not null, user_id bigint not null references users (user_id))""");
+            statement.execute("insert into users values (1, 'old', 'old@example.com', 'p', 'USER', true, null, null)");
+            statement.execute("insert into orders values (1, 10.00, 'PROCESSING', 1)");
+        }
+
+        // Act
+        migrate();
+
+        // Assert
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            assertThat(query(statement, "select user_version from users where user_id = 1")).isZero();
+            assertThat(query(statement, "select order_version from orders where order_id = 1")).isZero();
+            assertThatThrownBy(() -> statement.execute("update orders set order_version = null"))
+                    .isInstanceOf(SQLException.class);
+        }
+    }
+}
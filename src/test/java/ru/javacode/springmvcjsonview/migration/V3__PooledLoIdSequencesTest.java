@@ -0,0 +1,80 @@
+package ru.javacode.springmvcjsonview.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.javacode.springmvcjsonview.config.IdSequenceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class V3__PooledLoIdSequencesTest {
+
+    private final String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .javaMigrations(new V3__PooledLoIdSequences(new IdSequenceProperties(50)))
+                .load()
+                .migrate();
+    }
+
+    private long query(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    @Test
+    @DisplayName("В базе, созданной ddl-auto, последовательности начинаются после выданных id")
+    void existingSchema() throws Exception {
+        // Arrange
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create sequence orders_seq start with 1 increment by 50");
+            statement.execute("create sequence users_seq start with 1 increment by 50");
+            statement.execute("select next value for users_seq"); // 1
+            statement.execute("select next value for users_seq"); // 51: узлы раздают id до 51
+            statement.execute("create table users (user_id bigint not null primary key)");
+            statement.execute("create table orders (order_id bigint not null primary key)");
+            statement.execute("insert into users values (3)");
+            statement.execute("insert into orders values (120)");
+        }
+
+        // Act
+        migrate();
+
+        // Assert
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            assertThat(query(statement, "select next value for orders_id_seq")).isEqualTo(121);
+            assertThat(query(statement, "select next value for orders_id_seq")).isEqualTo(171);
+            assertThat(query(statement, "select next value for users_id_seq")).isEqualTo(102);
+        }
+    }
+
+    @Test
+    @DisplayName("Пустая база получает схему и последовательности с единицы")
+    void emptySchema() throws Exception {
+        // Act
+        migrate();
+
+        // Assert
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            assertThat(query(statement, "select count(*) from orders")).isZero();
+            assertThat(query(statement, "select next value for users_id_seq")).isEqualTo(1);
+            assertThat(query(statement, "select next value for users_id_seq")).isEqualTo(51);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.javacode.springmvcjsonview.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.javacode.springmvcjsonview.accesslog.AccessLog;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.security.jwt.claims-only=true",
+        "app.access-log.drain-interval=1h",
+        "app.access-log.routes[/api/v1/orders/stats]=1.0"
+})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class AccessLogFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JWTUtils jwtUtils;
+
+    @Autowired
+    private AccessLog accessLog;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("access")
+                .email("access-log@example.com")
+                .password("password")
+                .role(Role.MODERATOR)
+                .isAccountNonLocked(true)
+                .build());
+        accessLog.drain();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId());
+    }
+
+    @Test
+    @DisplayName("Одна запись на запрос: шаблон маршрута, статус, размер и id пользователя")
+    void recordsRouteTemplateAndPrincipal(CapturedOutput output) throws Exception {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+
+        // Act
+        mockMvc.perform(get("/api/v1/orders/{orderId}", Long.MAX_VALUE)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        int drained = accessLog.drain();
+
+        // Assert
+        assertThat(drained).isEqualTo(2);
+        assertThat(output.getOut())
+                .contains("method=GET route=/api/v1/orders/{orderId} status=404")
+                .contains("method=GET route=/api/v1/orders/stats status=200")
+                .contains("principal=" + user.getUserId())
+                .doesNotContain("route=/api/v1/orders/" + Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Отказ в доступе тоже записывается, без пользователя")
+    void recordsRejectedRequest(CapturedOutput output) throws Exception {
+        // Act
+        mockMvc.perform(get("/api/v1/orders/stats")).andExpect(status().isForbidden());
+        accessLog.drain();
+
+        // Assert
+        assertThat(output.getOut()).contains("method=GET route=/api/v1/orders/stats status=403")
+                .contains("principal=-");
+    }
+
+    @Test
+    @DisplayName("Запрос не пишет в лог сам: записи появляются только при выгрузке")
+    void writesOnlyOnDrain(CapturedOutput output) throws Exception {
+        // Act
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + jwtUtils.generateToken(user)))
+                .andExpect(status().isOk());
+
+        // Assert
+        assertThat(output.getOut()).doesNotContain("route=/api/v1/orders/stats");
+        accessLog.drain();
+        assertThat(output.getOut()).contains("route=/api/v1/orders/stats status=200");
+    }
+}
@@ -0,0 +1,93 @@
+package ru.javacode.springmvcjsonview.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.javacode.springmvcjsonview.config.PasswordHashingProperties;
+import ru.javacode.springmvcjsonview.exception.ServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class BoundedPasswordEncoderTest {
+
+    // доля ядер настолько мала, что пул всегда из одного потока
+    private static final PasswordHashingProperties ONE_THREAD_ONE_SLOT =
+            new PasswordHashingProperties(0.0001, 1, Duration.ofSeconds(2));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    @DisplayName("Хеширование и проверка выполняются на пуле и отдают результат BCrypt")
+    void delegatesToBcrypt() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), ONE_THREAD_ONE_SLOT, meterRegistry);
+
+        // Act
+        String hash = encoder.encode("secret");
+
+        // Assert
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("other", hash)).isFalse();
+        assertThat(meterRegistry.get("executor.pool.max").tag("name", "password-hashing")
+                .gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Исключение BCrypt доходит до вызывающего как есть")
+    void delegateExceptionPropagates() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), ONE_THREAD_ONE_SLOT, meterRegistry);
+
+        // Act & Assert
+        assertThatThrownBy(() -> encoder.matches(null, "hash")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("При занятом пуле и полной очереди вызов сразу отклоняется с Retry-After")
+    void rejectsWhenSaturated() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(blocking, ONE_THREAD_ONE_SLOT, meterRegistry);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "hash"));
+        await().until(() -> meterRegistry.get("executor.active").tag("name", "password-hashing")
+                .gauge().value() == 1);
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "hash"));
+        await().until(() -> meterRegistry.get("executor.queued").tag("name", "password-hashing")
+                .gauge().value() == 1);
+
+        // Act & Assert
+        assertThatThrownBy(() -> encoder.matches("c", "hash"))
+                .isInstanceOf(ServiceOverloadedException.class)
+                .extracting("retryAfter").isEqualTo(Duration.ofSeconds(2));
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
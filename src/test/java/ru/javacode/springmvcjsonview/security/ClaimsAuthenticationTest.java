@@ -0,0 +1,198 @@
+package ru.javacode.springmvcjsonview.security;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.service.UserService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.security.jwt.claims-only=true"
+})
+@AutoConfigureMockMvc
+class ClaimsAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JWTUtils jwtUtils;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("claims")
+                .email("claims@example.com")
+                .password("password")
+                .role(Role.MODERATOR)
+                .isAccountNonLocked(true)
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId()); // удалённый в тесте пользователь пропускается
+    }
+
+    @Test
+    @DisplayName("Запрос с access-токеном аутентифицируется по claims без обращения к users")
+    void authenticatesWithoutDatabase() throws Exception {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+
+        // Act
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // Assert
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Роль из токена проверяется правилами доступа")
+    void roleFromClaims() throws Exception {
+        // Arrange
+        user.setRole(Role.USER);
+        String token = jwtUtils.generateToken(user);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().is5xxServerError()); // AccessDenied превращается в 500 общим обработчиком
+    }
+
+    @Test
+    @DisplayName("Токен, выданный до блокировки, отклоняется без обращения к users")
+    void revokedTokenRejected() throws Exception {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10); // iat хранится с точностью до секунды
+        verifiedTokenCache.revoke(user.getUsername());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/orders/stats")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtils.generateToken(user)))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Refresh-токен без ролей не принимается как access-токен")
+    void refreshTokenRejected() throws Exception {
+        // Arrange
+        String refreshToken = jwtUtils.generateRefreshToken(user);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Токен без id пользователя проверяется по users, но отзыв учитывается и там")
+    void revokedTokenRejectedOnDatabasePath() throws Exception {
+        // Arrange
+        String token = tokenWithoutUserId();
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10); // iat хранится с точностью до секунды
+        verifiedTokenCache.revoke(user.getUsername());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Токен без id пользователя не аутентифицирует заблокированную учётную запись")
+    void lockedAccountRejectedOnDatabasePath() throws Exception {
+        // Arrange
+        String token = tokenWithoutUserId();
+        user.setAccountNonLocked(false);
+        user = userRepository.save(user);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Токены удалённого пользователя отклоняются на обоих путях")
+    void deletedUserTokensRejected() throws Exception {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+        String tokenWithoutUserId = tokenWithoutUserId();
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10); // iat хранится с точностью до секунды
+
+        // Act
+        userService.deleteUser(user.getUserId());
+
+        // Assert
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenWithoutUserId))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Токен, выданный до смены email и пароля, отклоняется, а новый принимается")
+    void tokenRejectedAfterCredentialsChange() throws Exception {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10); // iat хранится с точностью до секунды
+
+        // Act
+        User updated = userService.updateUser(user.getUserId(), User.builder()
+                .email("claims-renamed@example.com")
+                .password("new-password")
+                .build(), null).body();
+
+        // Assert
+        mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/orders/stats")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtils.generateToken(updated)))
+                .andExpect(status().isOk());
+    }
+
+    // токены, выданные до появления claim uid, аутентифицируются через чтение users
+    private String tokenWithoutUserId() {
+        return jwtUtils.generateToken(User.builder()
+                .email(user.getEmail())
+                .role(user.getRole())
+                .build());
+    }
+}
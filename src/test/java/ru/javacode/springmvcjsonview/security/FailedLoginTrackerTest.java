@@ -0,0 +1,165 @@
+package ru.javacode.springmvcjsonview.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.javacode.springmvcjsonview.config.BackgroundThreads;
+import ru.javacode.springmvcjsonview.config.LoginAttemptsProperties;
+import ru.javacode.springmvcjsonview.dto.LockState;
+import ru.javacode.springmvcjsonview.dto.LockedAccount;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+import ru.javacode.springmvcjsonview.service.UserService;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FailedLoginTrackerTest {
+
+    private static final long MINUTE = 60_000;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserService userService = mock(UserService.class);
+    // запись по расписанию отодвинута, чтобы тесты вызывали flush сами
+    private final FailedLoginTracker tracker = new FailedLoginTracker(userRepository, userService,
+            new LoginAttemptsProperties(5, Duration.ofMinutes(15), Duration.ofMinutes(15), Duration.ofHours(1), 100),
+            new BackgroundThreads(false));
+
+    private final User user = User.builder()
+            .userId(3L)
+            .email("tracked@example.com")
+            .role(Role.USER)
+            .isAccountNonLocked(true)
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        tracker.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LockState> flushed() {
+        ArgumentCaptor<Collection<LockState>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(userService).updateLockStates(captor.capture());
+        return List.copyOf(captor.getValue());
+    }
+
+    @Test
+    @DisplayName("Пять неудач внутри окна блокируют учётную запись на срок блокировки")
+    void fiveFailuresInsideWindowLock() {
+        // Arrange
+        long now = 1_000 * MINUTE;
+        for (int i = 0; i < 4; i++) {
+            assertThat(tracker.recordFailure(user, now + i * MINUTE)).isFalse();
+        }
+
+        // Act
+        boolean locked = tracker.recordFailure(user, now + 4 * MINUTE);
+
+        // Assert
+        assertThat(locked).isTrue();
+        assertThat(tracker.isLocked(user, now + 18 * MINUTE)).isTrue();
+        assertThat(tracker.isLocked(user, now + 19 * MINUTE)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Неудачи, вышедшие из скользящего окна, не считаются")
+    void oldFailuresSlideOut() {
+        // Arrange
+        long now = 1_000 * MINUTE;
+        for (int i = 0; i < 4; i++) {
+            tracker.recordFailure(user, now + i * MINUTE);
+        }
+
+        // Act
+        boolean locked = tracker.recordFailure(user, now + 15 * MINUTE);
+
+        // Assert
+        assertThat(locked).isFalse();
+        assertThat(tracker.isLocked(user, now + 15 * MINUTE)).isFalse();
+    }
+
+    @Test
+    @DisplayName("В базу пишется только блокировка, одной пачкой")
+    void onlyLockIsPersisted() {
+        // Arrange
+        long now = 1_000 * MINUTE;
+        for (int i = 0; i < 5; i++) {
+            tracker.recordFailure(user, now + i);
+        }
+
+        // Act
+        tracker.flush();
+        tracker.flush();
+
+        // Assert
+        assertThat(flushed()).containsExactly(LockState.locked(user.getUserId(), 5, now + 4));
+    }
+
+    @Test
+    @DisplayName("Успешный вход без блокировки в базе ничего не пишет, а с блокировкой — снимает её")
+    void successWritesOnlyPersistedLock() {
+        // Arrange
+        tracker.recordFailure(user, MINUTE);
+        User lockedInDatabase = User.builder()
+                .userId(4L)
+                .email("locked@example.com")
+                .isAccountNonLocked(false)
+                .failedAttempts(5)
+                .lockTime(MINUTE)
+                .build();
+
+        // Act
+        tracker.recordSuccess(user);
+        tracker.recordSuccess(lockedInDatabase);
+        tracker.flush();
+
+        // Assert
+        assertThat(flushed()).containsExactly(LockState.unlocked(4L));
+    }
+
+    @Test
+    @DisplayName("Действующие блокировки восстанавливаются из lock_time после рестарта")
+    void restoresLocksFromDatabase() {
+        // Arrange
+        long lockTime = System.currentTimeMillis() - MINUTE;
+        when(userRepository.findLockedSince(anyLong()))
+                .thenReturn(List.of(new LockedAccount(user.getEmail(), lockTime)));
+
+        // Act
+        tracker.restore();
+
+        // Assert
+        assertThat(tracker.isLocked(user, lockTime + MINUTE)).isTrue();
+        verify(userService, never()).updateLockStates(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Сбой записи возвращает переходы в очередь")
+    void failedFlushIsRetried() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            tracker.recordFailure(user, MINUTE + i);
+        }
+        doThrow(new IllegalStateException("db down")).when(userService).updateLockStates(anyCollection());
+
+        // Act & Assert
+        assertThatThrownBy(tracker::flush).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(tracker::flush).isInstanceOf(IllegalStateException.class);
+        verify(userService, times(2)).updateLockStates(anyCollection());
+    }
+}
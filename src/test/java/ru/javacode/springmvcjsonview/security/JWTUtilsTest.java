@@ -0,0 +1,98 @@
+package ru.javacode.springmvcjsonview.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.javacode.springmvcjsonview.config.JwtProperties;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JWTUtilsTest {
+
+    private final JWTUtils jwtUtils = new JWTUtils();
+
+    private final User user = User.builder()
+            .userId(1L)
+            .name("jwt")
+            .email("jwt@example.com")
+            .role(Role.MODERATOR)
+            .build();
+
+    @Test
+    @DisplayName("Проверенный токен отдаёт владельца, срок действия и имена ролей")
+    void verifyReturnsClaims() {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+
+        // Act
+        TokenClaims claims = jwtUtils.verify(token);
+
+        // Assert
+        assertThat(claims.subject()).isEqualTo("jwt@example.com");
+        assertThat(claims.userId()).isEqualTo(1L);
+        assertThat(claims.roles()).containsExactly("ROLE_MODERATOR");
+        assertThat(Duration.between(claims.issuedAt(), claims.expiration())).isEqualTo(Duration.ofHours(24));
+        assertThat(jwtUtils.isTokenValid(claims, user)).isTrue();
+    }
+
+    @Test
+    @DisplayName("В теле токена только sub, iat, exp, id пользователя и роли строками")
+    void payloadIsSlim() {
+        // Act
+        String token = jwtUtils.generateToken(user);
+
+        // Assert
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        assertThat(payload).contains("\"roles\":[\"ROLE_MODERATOR\"]", "\"uid\":1")
+                .doesNotContain("issuedAt", "expiration", "authority");
+    }
+
+    @Test
+    @DisplayName("Refresh-токен без ролей, а чужой владелец не проходит проверку")
+    void refreshTokenHasNoRoles() {
+        // Arrange
+        User other = User.builder().email("other@example.com").role(Role.USER).build();
+
+        // Act
+        TokenClaims claims = jwtUtils.verify(jwtUtils.generateRefreshToken(user));
+
+        // Assert
+        assertThat(claims.roles()).isEmpty();
+        assertThat(claims.userId()).isNull();
+        assertThat(jwtUtils.isTokenValid(claims, other)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Сроки access- и refresh-токенов берутся из настроек")
+    void ttlFromProperties() {
+        // Arrange
+        JWTUtils configured = new JWTUtils(new JwtProperties(Duration.ofMinutes(15), Duration.ofDays(7), true));
+
+        // Act
+        TokenClaims access = configured.verify(configured.generateToken(user));
+        TokenClaims refresh = configured.verify(configured.generateRefreshToken(user));
+
+        // Assert
+        assertThat(Duration.between(access.issuedAt(), access.expiration())).isEqualTo(Duration.ofMinutes(15));
+        assertThat(Duration.between(refresh.issuedAt(), refresh.expiration())).isEqualTo(Duration.ofDays(7));
+    }
+
+    @Test
+    @DisplayName("Токен с изменённой подписью отклоняется")
+    void tamperedTokenRejected() {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // Act & Assert
+        assertThatThrownBy(() -> jwtUtils.verify(tampered)).isInstanceOf(JwtException.class);
+    }
+}
@@ -0,0 +1,171 @@
+package ru.javacode.springmvcjsonview.security;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class LoginTest {
+
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private FailedLoginTracker failedLoginTracker;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // свой email на каждый тест, чтобы кэш поиска по email не помнил удалённых пользователей
+        user = userRepository.save(User.builder()
+                .name("login")
+                .email("login-" + UUID.randomUUID() + "@example.com")
+                .password(passwordEncoder.encode(PASSWORD))
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId());
+    }
+
+    private ResultActions login(String password) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + user.getEmail() + "\",\"password\":\"" + password + "\"}"));
+    }
+
+    @Test
+    @DisplayName("Успешный вход читает пользователя одним запросом и ничего не пишет")
+    void successfulLoginSingleRead() throws Exception {
+        // Act
+        login(PASSWORD)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jwt").exists());
+
+        // Assert
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Неверный пароль считается в памяти и ничего не пишет в базу")
+    void failedLoginNotWritten() throws Exception {
+        // Act
+        login("wrong").andExpect(status().isUnauthorized());
+        failedLoginTracker.flush();
+
+        // Assert
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Пятая неудачная попытка блокирует сразу, а в базу пишется одна блокировка без смены версии")
+    void fifthFailureLocks() throws Exception {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            login("wrong").andExpect(status().isUnauthorized());
+        }
+
+        // Act
+        login(PASSWORD).andExpect(status().isLocked());
+        failedLoginTracker.flush();
+
+        // Assert
+        User stored = userRepository.findById(user.getUserId()).orElseThrow();
+        assertThat(stored.isAccountNonLocked()).isFalse();
+        assertThat(stored.getFailedAttempts()).isEqualTo(5);
+        assertThat(stored.getLockTime()).isNotNull();
+        assertThat(stored.getVersion()).isEqualTo(user.getVersion());
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Запись блокировки не сбрасывает другие записи региона user в кэше второго уровня")
+    void lockKeepsOtherUsersCached() throws Exception {
+        // Arrange
+        User other = userRepository.save(User.builder()
+                .name("other")
+                .email("other-" + UUID.randomUUID() + "@example.com")
+                .password(passwordEncoder.encode(PASSWORD))
+                .role(Role.USER)
+                .isAccountNonLocked(true)
+                .build());
+        userRepository.findById(other.getUserId());
+        for (int i = 0; i < 5; i++) {
+            login("wrong").andExpect(status().isUnauthorized());
+        }
+
+        try {
+            // Act
+            failedLoginTracker.flush();
+
+            // Assert
+            assertThat(entityManagerFactory.getCache().contains(User.class, other.getUserId())).isTrue();
+        } finally {
+            userRepository.deleteById(other.getUserId());
+        }
+    }
+
+    @Test
+    @DisplayName("Истёкшая блокировка снимается при входе и сбрасывается одной записью")
+    void expiredLockClearedOnLogin() throws Exception {
+        // Arrange
+        user.setAccountNonLocked(false);
+        user.setFailedAttempts(5);
+        user.setLockTime(System.currentTimeMillis() - 16 * 60 * 1000);
+        user = userRepository.save(user);
+        statistics.clear();
+
+        // Act
+        login(PASSWORD).andExpect(status().isOk());
+        failedLoginTracker.flush();
+
+        // Assert
+        User stored = userRepository.findById(user.getUserId()).orElseThrow();
+        assertThat(stored.isAccountNonLocked()).isTrue();
+        assertThat(stored.getFailedAttempts()).isZero();
+        assertThat(stored.getLockTime()).isNull();
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.javacode.springmvcjsonview.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.javacode.springmvcjsonview.config.UserLookupCacheProperties;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserEmailAssignedEvent;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserLookupCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserLookupCache cache = new UserLookupCache(userRepository,
+            new UserLookupCacheProperties(true, 100, Duration.ofMinutes(10), Duration.ofMinutes(1)), meterRegistry);
+
+    private final User user = User.builder()
+            .userId(5L)
+            .email("lookup@example.com")
+            .role(Role.USER)
+            .build();
+
+    @Test
+    @DisplayName("Повторный поиск по email берёт id из кэша и читает пользователя по id")
+    void secondLookupByCachedId() {
+        // Arrange
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(user));
+
+        // Act
+        cache.findByEmail(user.getEmail());
+        Optional<User> found = cache.findByEmail(user.getEmail());
+
+        // Assert
+        assertThat(found).contains(user);
+        verify(userRepository, times(1)).findByEmail(user.getEmail());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "user-lookups").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Неизвестный email кэшируется до появления пользователя с этим адресом")
+    void negativeLookupUntilEmailAssigned() {
+        // Arrange
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
+        cache.findByEmail(user.getEmail());
+        assertThat(cache.findByEmail(user.getEmail())).isEmpty();
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(user));
+
+        // Act
+        cache.onEmailAssigned(new UserEmailAssignedEvent(user.getEmail()));
+
+        // Assert
+        assertThat(cache.findByEmail(user.getEmail())).contains(user);
+        verify(userRepository, times(2)).findByEmail(user.getEmail());
+    }
+
+    @Test
+    @DisplayName("Изменение пользователя сбрасывает его запись")
+    void userChangeEvictsLookup() {
+        // Arrange
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(user));
+        cache.findByEmail(user.getEmail());
+
+        // Act
+        cache.onUserChanged(new UserChangedEvent(user.getUserId()));
+        cache.findByEmail(user.getEmail());
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail(user.getEmail());
+    }
+
+    @Test
+    @DisplayName("Запись, указывающая на пользователя со сменённым email, не отдаёт его")
+    void staleLookupFallsBackToQuery() {
+        // Arrange
+        User renamed = User.builder().userId(user.getUserId()).email("renamed@example.com").build();
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user), Optional.empty());
+        when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(renamed));
+
+        // Act
+        Optional<User> found = cache.findByEmail(user.getEmail());
+
+        // Assert
+        assertThat(found).isEmpty();
+        verify(userRepository, times(2)).findByEmail(user.getEmail());
+    }
+}
@@ -0,0 +1,138 @@
+package ru.javacode.springmvcjsonview.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.javacode.springmvcjsonview.config.JwtProperties;
+import ru.javacode.springmvcjsonview.config.TokenCacheProperties;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.security.dto.TokenClaims;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class VerifiedTokenCacheTest {
+
+    private final JWTUtils jwtUtils = spy(new JWTUtils());
+
+    private final User user = User.builder()
+            .email("cached@example.com")
+            .role(Role.USER)
+            .build();
+
+    private final String token = jwtUtils.generateToken(user);
+
+    private VerifiedTokenCache cache(boolean enabled) {
+        return new VerifiedTokenCache(jwtUtils, new JwtProperties(Duration.ofMinutes(15), Duration.ofHours(24), true),
+                new TokenCacheProperties(enabled, 100), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Повторный запрос с тем же токеном не проверяет подпись заново")
+    void secondVerifyIsCached() {
+        // Arrange
+        VerifiedTokenCache cache = cache(true);
+
+        // Act
+        TokenClaims first = cache.verify(token);
+        TokenClaims second = cache.verify(token);
+
+        // Assert
+        assertThat(second).isSameAs(first);
+        assertThat(second.roles()).containsExactly("ROLE_USER");
+        verify(jwtUtils, times(1)).verify(token);
+    }
+
+    @Test
+    @DisplayName("Отзыв пользователя сразу убирает его токены из кэша")
+    void revokeDropsEntries() {
+        // Arrange
+        VerifiedTokenCache cache = cache(true);
+        cache.verify(token);
+
+        // Act
+        cache.revoke(user.getUsername());
+        cache.verify(token);
+
+        // Assert
+        verify(jwtUtils, times(2)).verify(token);
+    }
+
+    @Test
+    @DisplayName("Проверка, начатая до отзыва, не оставляет в кэше действующую запись")
+    void revokeDuringVerification() {
+        // Arrange
+        VerifiedTokenCache cache = cache(true);
+        doAnswer(invocation -> {
+            TokenClaims claims = (TokenClaims) invocation.callRealMethod();
+            cache.revoke(user.getUsername());
+            return claims;
+        }).doCallRealMethod().when(jwtUtils).verify(anyString());
+
+        // Act
+        cache.verify(token);
+        cache.verify(token);
+        cache.verify(token);
+
+        // Assert
+        verify(jwtUtils, times(2)).verify(token);
+    }
+
+    @Test
+    @DisplayName("Токен, выданный до отзыва, считается отозванным и без кэша, а выданный позже — нет")
+    void revokedBeforeIssue() {
+        // Arrange
+        VerifiedTokenCache cache = cache(false);
+        Instant now = Instant.now();
+        TokenClaims before = new TokenClaims(user.getUsername(), 1L, now.minusSeconds(60), now.plusSeconds(60),
+                List.of("ROLE_USER"));
+        TokenClaims after = new TokenClaims(user.getUsername(), 1L, now.plusSeconds(1), now.plusSeconds(60),
+                List.of("ROLE_USER"));
+
+        // Act
+        cache.revoke(user.getUsername());
+
+        // Assert
+        assertThat(cache.isRevoked(before)).isTrue();
+        assertThat(cache.isRevoked(after)).isFalse();
+        assertThat(cache.isRevoked(jwtUtils.verify(jwtUtils.generateToken(
+                User.builder().email("other@example.com").role(Role.USER).build())))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Неверный токен не кэшируется и отклоняется каждый раз")
+    void invalidTokenNotCached() {
+        // Arrange
+        VerifiedTokenCache cache = cache(true);
+
+        // Act & Assert
+        assertThatThrownBy(() -> cache.verify("not-a-token")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> cache.verify("not-a-token")).isInstanceOf(JwtException.class);
+        verify(jwtUtils, times(2)).verify("not-a-token");
+    }
+
+    @Test
+    @DisplayName("Выключенный кэш проверяет токен на каждом запросе")
+    void disabledCacheAlwaysVerifies() {
+        // Arrange
+        VerifiedTokenCache cache = cache(false);
+
+        // Act
+        cache.verify(token);
+        cache.verify(token);
+
+        // Assert
+        verify(jwtUtils, times(2)).verify(token);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.javacode.springmvcjsonview.security;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.javacode.springmvcjsonview.config.BackgroundThreads;
+import ru.javacode.springmvcjsonview.model.Role;
+import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.UserRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "app.security.jwt.claims-only=true"
+})
+@AutoConfigureMockMvc
+class VirtualThreadsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JWTUtils jwtUtils;
+
+    @Autowired
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private ServletWebServerFactory servletWebServerFactory;
+
+    @Autowired
+    private BackgroundThreads backgroundThreads;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .name("virtual")
+                .email("virtual@example.com")
+                .password("password")
+                .role(Role.MODERATOR)
+                .isAccountNonLocked(true)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getUserId());
+    }
+
+    @Test
+    @DisplayName("@Async и асинхронные запросы MVC выполняются на виртуальных потоках")
+    void applicationTaskExecutorIsVirtual() throws Exception {
+        // Act
+        boolean virtual = applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual())
+                .get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(virtual).isTrue();
+    }
+
+    @Test
+    @DisplayName("Фоновые исполнители приложения получают виртуальные потоки")
+    void backgroundThreadsAreVirtual() {
+        // Act
+        Thread thread = backgroundThreads.factory("test-").newThread(() -> { });
+
+        // Assert
+        assertThat(thread.isVirtual()).isTrue();
+        assertThat(thread.getName()).isEqualTo("test-1");
+    }
+
+    @Test
+    @DisplayName("Дополнительный HTTP-коннектор тоже работает на виртуальных потоках")
+    void redirectConnectorIsVirtual() {
+        // Act
+        Connector connector = ((TomcatServletWebServerFactory) servletWebServerFactory)
+                .getAdditionalTomcatConnectors().get(0);
+
+        // Assert
+        assertThat(connector.getProtocolHandler().getExecutor()).isInstanceOf(VirtualThreadExecutor.class);
+    }
+
+    @Test
+    @DisplayName("JWT-аутентификация работает для запроса, обрабатываемого на виртуальном потоке")
+    void authenticatesOnVirtualThread() throws Exception {
+        // Arrange
+        String token = jwtUtils.generateToken(user);
+
+        // Act & Assert
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                mockMvc.perform(get("/api/v1/orders/stats").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                        .andExpect(status().isOk());
+                mockMvc.perform(get("/api/v1/orders/stats"))
+                        .andExpect(status().isForbidden());
+                return null;
+            }).get(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package ru.javacode.springmvcjsonview.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -9,7 +11,20 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.OrderStatusTransition;
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+import ru.javacode.springmvcjsonview.dto.OrderAmount;
+import ru.javacode.springmvcjsonview.dto.OrderVersion;
+import ru.javacode.springmvcjsonview.dto.Tagged;
+import ru.javacode.springmvcjsonview.event.OrderAggregatesChangedEvent;
+import ru.javacode.springmvcjsonview.event.OrderChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.exception.PreconditionFailedException;
 import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
 import ru.javacode.springmvcjsonview.model.Order;
 import ru.javacode.springmvcjsonview.model.OrderStatus;
@@ -17,11 +32,14 @@ import ru.javacode.springmvcjsonview.model.User;
 import ru.javacode.springmvcjsonview.repository.OrderRepository;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,6 +51,12 @@ class OrderServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -110,65 +134,250 @@ class OrderServiceImplTest {
     @DisplayName("Тесты для метода updateOrder")
     class UpdateOrderTests {
 
+        private final Order updatedInfo = Order.builder()
+                .amount(new BigDecimal("199.99"))
+                .orderStatus(OrderStatus.DELIVERY)
+                .build();
+
+        // Заказ в базе: flush увеличивает его версию так же, как UPDATE с проверкой @Version
+        private Order storedOrder(Long version, Long userVersion) {
+            Order stored = Order.builder()
+                    .orderId(1L)
+                    .amount(new BigDecimal("99.99"))
+                    .orderStatus(OrderStatus.PROCESSING)
+                    .user(User.builder().userId(7L).version(userVersion).build())
+                    .version(version)
+                    .build();
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(stored));
+            return stored;
+        }
+
+        private void flushIncrementsVersion(Order stored) {
+            doAnswer(invocation -> {
+                stored.setVersion(stored.getVersion() + 1);
+                return null;
+            }).when(orderRepository).flush();
+        }
+
         @Test
-        @DisplayName("Успешное обновление заказа")
+        @DisplayName("Успешное обновление заказа через управляемую сущность без блокировки строки")
         void updateOrder_Success() {
             // Arrange
-            Long orderId = 1L;
-            Order updatedInfo = Order.builder()
-                    .amount(new BigDecimal("199.99"))
-                    .orderStatus(OrderStatus.DELIVERY)
-                    .build();
+            Order stored = storedOrder(1L, 0L);
+            flushIncrementsVersion(stored);
 
-            Order updatedOrder = Order.builder()
-                    .orderId(orderId)
-                    .amount(updatedInfo.getAmount())
-                    .orderStatus(updatedInfo.getOrderStatus())
-                    .user(testOrder.getUser())
-                    .build();
+            // Act
+            Tagged<Order> result = orderService.updateOrder(1L, updatedInfo, null);
 
-            when(orderRepository.findById(orderId)).thenReturn(Optional.of(testOrder));
-            when(orderRepository.save(any(Order.class))).thenReturn(updatedOrder);
+            // Assert
+            verify(orderRepository).flush();
+            verify(entityManager, never()).lock(any(), any());
+            verify(eventPublisher, times(1)).publishEvent(new OrderChangedEvent(1L, 7L));
+            assertThat(stored.getAmount()).isEqualTo(updatedInfo.getAmount());
+            assertThat(stored.getOrderStatus()).isEqualTo(updatedInfo.getOrderStatus());
+
+            assertThat(result.eTag()).isEqualTo("2.0");
+            assertThat(result.body().getOrderId()).isEqualTo(1L);
+            assertThat(result.body().getAmount()).isEqualTo(updatedInfo.getAmount());
+            assertThat(result.body().getOrderStatus()).isEqualTo(updatedInfo.getOrderStatus());
+            assertThat(result.body().getVersion()).isEqualTo(2L);
+        }
+
+        @Test
+        @DisplayName("Обновление переносит заказ в статистике из прежнего статуса и суммы в новые")
+        void updateOrder_PublishesAggregateDeltas() {
+            // Arrange
+            flushIncrementsVersion(storedOrder(1L, 0L));
 
             // Act
-            Order result = orderService.updateOrder(orderId, updatedInfo);
+            orderService.updateOrder(1L, updatedInfo, null);
 
             // Assert
-            verify(orderRepository, times(1)).findById(orderId);
-            ArgumentCaptor<Order> orderCaptor = ArgumentCaptor.forClass(Order.class);
-            verify(orderRepository, times(1)).save(orderCaptor.capture());
+            verify(eventPublisher).publishEvent(OrderAggregatesChangedEvent.of(
+                    new OrderAggregate(7L, OrderStatus.PROCESSING, -1L, new BigDecimal("-99.99")),
+                    new OrderAggregate(7L, OrderStatus.DELIVERY, 1L, new BigDecimal("199.99"))));
+        }
 
-            Order capturedOrder = orderCaptor.getValue();
-            assertThat(capturedOrder.getAmount()).isEqualTo(updatedInfo.getAmount());
-            assertThat(capturedOrder.getOrderStatus()).isEqualTo(updatedInfo.getOrderStatus());
-            assertThat(capturedOrder.getUser()).isEqualTo(testOrder.getUser());
+        @Test
+        @DisplayName("Условное обновление заказа сверяет версию из If-Match и версию владельца")
+        void updateOrder_IfVersionMatches() {
+            // Arrange
+            Order stored = storedOrder(1L, 4L);
+            flushIncrementsVersion(stored);
 
-            assertThat(result).isNotNull();
-            assertThat(result.getOrderId()).isEqualTo(orderId);
-            assertThat(result.getAmount()).isEqualTo(updatedInfo.getAmount());
-            assertThat(result.getOrderStatus()).isEqualTo(updatedInfo.getOrderStatus());
-            assertThat(result.getUser()).isEqualTo(testOrder.getUser());
+            // Act
+            Tagged<Order> result = orderService.updateOrder(1L, updatedInfo, OrderVersion.parse("1.4"));
+
+            // Assert
+            verify(entityManager).lock(stored.getUser(), LockModeType.OPTIMISTIC);
+            assertThat(result.eTag()).isEqualTo("2.4");
+        }
+
+        @Test
+        @DisplayName("Неудачное обновление заказа - версия из If-Match устарела")
+        void updateOrder_VersionMismatch() {
+            // Arrange
+            Order stored = storedOrder(2L, 0L);
+
+            // Act & Assert
+            assertThatThrownBy(() -> orderService.updateOrder(1L, updatedInfo, OrderVersion.parse("1.0")))
+                    .isInstanceOf(PreconditionFailedException.class);
+
+            verify(orderRepository, never()).flush();
+            verifyNoInteractions(eventPublisher);
+            assertThat(stored.getAmount()).isEqualTo(new BigDecimal("99.99"));
+        }
+
+        @Test
+        @DisplayName("Неудачное обновление заказа - заказ изменён параллельно после проверки If-Match")
+        void updateOrder_ConcurrentModification() {
+            // Arrange
+            storedOrder(1L, 0L);
+            doThrow(new ObjectOptimisticLockingFailureException(Order.class, 1L)).when(orderRepository).flush();
+
+            // Act & Assert
+            assertThatThrownBy(() -> orderService.updateOrder(1L, updatedInfo, OrderVersion.parse("1.0")))
+                    .isInstanceOf(PreconditionFailedException.class);
+
+            verifyNoInteractions(eventPublisher);
         }
 
         @Test
         @DisplayName("Неудачное обновление заказа - заказ не найден")
         void updateOrder_OrderNotFound() {
             // Arrange
-            Long orderId = 1L;
-            Order updatedInfo = Order.builder()
-                    .amount(new BigDecimal("199.99"))
-                    .orderStatus(OrderStatus.DELIVERY)
-                    .build();
-
-            when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+            when(orderRepository.findById(1L)).thenReturn(Optional.empty());
 
             // Act & Assert
-            assertThatThrownBy(() -> orderService.updateOrder(orderId, updatedInfo))
+            assertThatThrownBy(() -> orderService.updateOrder(1L, updatedInfo, null))
                     .isInstanceOf(ResourceNotFoundException.class)
-                    .hasMessageContaining("Order with id " + orderId + " not found");
+                    .hasMessageContaining("Order with id 1 not found");
+
+            verifyNoInteractions(eventPublisher);
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты для метода transitionStatus")
+    class TransitionStatusTests {
+
+        @Test
+        @DisplayName("Смена статуса по id одним UPDATE с допустимыми исходными статусами и сбросом кэша")
+        void transitionStatus_ByIds() {
+            // Arrange
+            List<Long> orderIds = List.of(1L, 2L);
+            OrderStatusTransition transition = new OrderStatusTransition(orderIds, null, null, OrderStatus.DELIVERY);
+            when(orderRepository.lockAmountsByOrderIds(orderIds)).thenReturn(List.of(
+                    new OrderAmount(1L, 7L, OrderStatus.PROCESSING, new BigDecimal("10.00")),
+                    new OrderAmount(2L, 8L, OrderStatus.CANCELLED, new BigDecimal("5.00"))));
+            when(orderRepository.updateStatusByOrderIds(orderIds, Set.of(OrderStatus.PROCESSING), OrderStatus.DELIVERY))
+                    .thenReturn(1);
+
+            // Act
+            int updated = orderService.transitionStatus(transition);
+
+            // Assert
+            assertThat(updated).isEqualTo(1);
+            verify(eventPublisher).publishEvent(new OrderChangedEvent(1L, 7L));
+            verify(eventPublisher).publishEvent(new OrderChangedEvent(2L, 8L));
+            verify(eventPublisher).publishEvent(OrderAggregatesChangedEvent.of(
+                    new OrderAggregate(7L, OrderStatus.PROCESSING, -1L, new BigDecimal("-10.00")),
+                    new OrderAggregate(7L, OrderStatus.DELIVERY, 1L, new BigDecimal("10.00"))));
+            verify(orderRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("Смена статуса заказов владельца сбрасывает его кэш одним событием")
+        void transitionStatus_ByOwner() {
+            // Arrange
+            OrderStatusTransition transition = new OrderStatusTransition(null, OrderStatus.DELIVERY, 7L,
+                    OrderStatus.CANCELLED);
+            Set<OrderStatus> sources = Set.of(OrderStatus.PROCESSING, OrderStatus.DELIVERY);
+            when(orderRepository.lockAmountsByOwner(7L, OrderStatus.DELIVERY, sources)).thenReturn(List.of(
+                    new OrderAmount(1L, 7L, OrderStatus.DELIVERY, new BigDecimal("1.00")),
+                    new OrderAmount(2L, 7L, OrderStatus.DELIVERY, new BigDecimal("2.00")),
+                    new OrderAmount(3L, 7L, OrderStatus.DELIVERY, new BigDecimal("3.00"))));
+            when(orderRepository.updateStatusByOwner(7L, OrderStatus.DELIVERY, sources, OrderStatus.CANCELLED))
+                    .thenReturn(3);
+
+            // Act
+            int updated = orderService.transitionStatus(transition);
 
-            verify(orderRepository, times(1)).findById(orderId);
-            verify(orderRepository, never()).save(any(Order.class));
+            // Assert
+            assertThat(updated).isEqualTo(3);
+            verify(eventPublisher, times(1)).publishEvent(new UserChangedEvent(7L));
+            ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+            verify(eventPublisher, times(2)).publishEvent(events.capture());
+            assertThat(events.getAllValues().get(1))
+                    .isInstanceOfSatisfying(OrderAggregatesChangedEvent.class, event -> {
+                        assertThat(event.resync()).isFalse();
+                        assertThat(event.deltas()).hasSize(6);
+                    });
+        }
+
+        @Test
+        @DisplayName("Если UPDATE задел строки сверх заблокированных, статистика пересобирается")
+        void transitionStatus_ByOwner_RowCountMismatch() {
+            // Arrange
+            OrderStatusTransition transition = new OrderStatusTransition(null, OrderStatus.PROCESSING, 7L,
+                    OrderStatus.DELIVERY);
+            when(orderRepository.lockAmountsByOwner(7L, OrderStatus.PROCESSING, Set.of(OrderStatus.PROCESSING)))
+                    .thenReturn(List.of());
+            when(orderRepository.updateStatusByOwner(7L, OrderStatus.PROCESSING, Set.of(OrderStatus.PROCESSING),
+                    OrderStatus.DELIVERY)).thenReturn(1);
+
+            // Act
+            orderService.transitionStatus(transition);
+
+            // Assert
+            verify(eventPublisher).publishEvent(OrderAggregatesChangedEvent.resyncRequired());
+        }
+
+        @Test
+        @DisplayName("Вернуть заказ в обработку нельзя")
+        void transitionStatus_NoAllowedSources() {
+            // Arrange
+            OrderStatusTransition transition = new OrderStatusTransition(List.of(1L), null, null,
+                    OrderStatus.PROCESSING);
+
+            // Act & Assert
+            assertThatThrownBy(() -> orderService.transitionStatus(transition))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verifyNoInteractions(orderRepository, eventPublisher);
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты для метода deleteOrder")
+    class DeleteOrderTests {
+
+        @Test
+        @DisplayName("Успешное удаление заказа публикует событие с владельцем")
+        void deleteOrder_Success() {
+            // Arrange
+            Order order = createDetailedTestOrder();
+            when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+
+            // Act
+            orderService.deleteOrder(order.getOrderId());
+
+            // Assert
+            verify(orderRepository, times(1)).delete(order);
+            verify(eventPublisher, times(1)).publishEvent(new OrderChangedEvent(order.getOrderId(), 1L));
+        }
+
+        @Test
+        @DisplayName("Удаление несуществующего заказа ничего не публикует")
+        void deleteOrder_NotFound() {
+            // Arrange
+            when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+
+            // Act
+            orderService.deleteOrder(1L);
+
+            // Assert
+            verify(orderRepository, never()).delete(any(Order.class));
+            verifyNoInteractions(eventPublisher);
         }
     }
 
@@ -181,13 +390,13 @@ class OrderServiceImplTest {
         void getOrderById_Success() {
             // Arrange
             Long orderId = testOrder.getOrderId();
-            when(orderRepository.findById(orderId)).thenReturn(Optional.of(testOrder));
+            when(orderRepository.findOrderDetailsByOrderId(orderId)).thenReturn(Optional.of(testOrder));
 
             // Act
             Order foundOrder = orderService.getOrderById(orderId);
 
             // Assert
-            verify(orderRepository, times(1)).findById(orderId);
+            verify(orderRepository, times(1)).findOrderDetailsByOrderId(orderId);
             assertThat(foundOrder).isNotNull();
             assertThat(foundOrder.getOrderId()).isEqualTo(orderId);
             assertThat(foundOrder.getAmount()).isEqualTo(testOrder.getAmount());
@@ -200,14 +409,14 @@ class OrderServiceImplTest {
         void getOrderById_OrderNotFound() {
             // Arrange
             Long orderId = 1L;
-            when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+            when(orderRepository.findOrderDetailsByOrderId(orderId)).thenReturn(Optional.empty());
 
             // Act & Assert
             assertThatThrownBy(() -> orderService.getOrderById(orderId))
                     .isInstanceOf(ResourceNotFoundException.class)
                     .hasMessageContaining("Order with id " + orderId + " not found");
 
-            verify(orderRepository, times(1)).findById(orderId);
+            verify(orderRepository, times(1)).findOrderDetailsByOrderId(orderId);
         }
     }
 
@@ -253,4 +462,70 @@ class OrderServiceImplTest {
             assertThat(result).isEmpty();
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Тесты для метода streamAllOrders")
+    class StreamAllOrdersTests {
+
+        @Test
+        @DisplayName("Заказы передаются по одному и отсоединяются от контекста")
+        void streamAllOrders_DetachesEachOrder() {
+            // Arrange
+            Order order1 = testOrder;
+            Order order2 = createDetailedTestOrder();
+            when(orderRepository.streamAll()).thenReturn(Stream.of(order1, order2));
+            List<Order> received = new ArrayList<>();
+
+            // Act
+            orderService.streamAllOrders(received::add);
+
+            // Assert
+            assertThat(received).containsExactly(order1, order2);
+            verify(entityManager, times(1)).detach(order1);
+            verify(entityManager, times(1)).detach(order2);
+            verify(orderRepository, never()).findAll();
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты для метода getOrdersPage")
+    class GetOrdersPageTests {
+
+        @Test
+        @DisplayName("Ключ следующей страницы равен id последнего заказа на странице")
+        void getOrdersPage_HasNext() {
+            // Arrange
+            Order order1 = createTestOrder();
+            Order order2 = createTestOrder();
+            order2.setOrderId(2L);
+            Order order3 = createTestOrder();
+            order3.setOrderId(3L);
+            when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(0L, Limit.of(3)))
+                    .thenReturn(List.of(order1, order2, order3));
+
+            // Act
+            KeysetPage<Order> page = orderService.getOrdersPage(null, 2);
+
+            // Assert
+            assertThat(page.content()).containsExactly(order1, order2);
+            assertThat(page.nextKey()).isEqualTo(2L);
+        }
+
+        @Test
+        @DisplayName("Последняя страница не содержит ключа следующей")
+        void getOrdersPage_LastPage() {
+            // Arrange
+            Order order = createTestOrder();
+            order.setOrderId(11L);
+            when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(10L, Limit.of(3)))
+                    .thenReturn(List.of(order));
+
+            // Act
+            KeysetPage<Order> page = orderService.getOrdersPage(10L, 2);
+
+            // Assert
+            assertThat(page.content()).containsExactly(order);
+            assertThat(page.hasNext()).isFalse();
+        }
+    }
+}
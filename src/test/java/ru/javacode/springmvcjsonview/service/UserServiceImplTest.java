@@ -1,5 +1,6 @@
 package ru.javacode.springmvcjsonview.service;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -9,21 +10,39 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.javacode.springmvcjsonview.dto.KeysetPage;
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+import ru.javacode.springmvcjsonview.dto.OrderAmount;
+import ru.javacode.springmvcjsonview.dto.UserVersion;
+import ru.javacode.springmvcjsonview.event.OrderAggregatesChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserChangedEvent;
+import ru.javacode.springmvcjsonview.event.UserCredentialsChangedEvent;
+import ru.javacode.springmvcjsonview.exception.PreconditionFailedException;
 import ru.javacode.springmvcjsonview.exception.ResourceNotFoundException;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
 import ru.javacode.springmvcjsonview.model.User;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
 import ru.javacode.springmvcjsonview.repository.UserRepository;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +51,18 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -109,10 +140,11 @@ class UserServiceImplTest {
                     .build();
 
             when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-            when(userRepository.save(any(User.class))).thenReturn(updatedUser);
+            when(userRepository.saveAndFlush(any(User.class))).thenReturn(updatedUser);
+            when(userRepository.findVersionByUserId(userId)).thenReturn(Optional.of(new UserVersion(1L, 0L, 0L, 0L)));
 
             // Act
-            User result = userService.updateUser(userId, updatedInfo);
+            User result = userService.updateUser(userId, updatedInfo, null).body();
 
             // Assert
             verify(userRepository, times(1)).findById(userId);
@@ -122,6 +154,80 @@ class UserServiceImplTest {
             assertThat(result.getEmail()).isEqualTo(updatedInfo.getEmail());
         }
 
+        @Test
+        @DisplayName("Смена только имени не отзывает токены пользователя")
+        void updateUser_NameOnly_KeepsTokens() {
+            // Arrange
+            Long userId = testUser.getUserId();
+            testUser.setPassword("$2a$10$" + "a".repeat(53));
+            User updatedInfo = User.builder()
+                    .name("updatedUser")
+                    .build();
+
+            when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+            when(userRepository.saveAndFlush(testUser)).thenReturn(testUser);
+            when(userRepository.findVersionByUserId(userId)).thenReturn(Optional.of(new UserVersion(1L, 0L, 0L, 0L)));
+
+            // Act
+            User result = userService.updateUser(userId, updatedInfo, null).body();
+
+            // Assert
+            assertThat(result.getUsername()).isEqualTo("updatedUser");
+            verify(eventPublisher, never()).publishEvent(any(UserCredentialsChangedEvent.class));
+            verifyNoInteractions(passwordEncoder);
+        }
+
+        @Test
+        @DisplayName("Тот же пароль в открытом виде не перекодируется и не отзывает токены")
+        void updateUser_SamePassword_KeepsTokens() {
+            // Arrange
+            Long userId = testUser.getUserId();
+            String hash = "$2a$10$" + "a".repeat(53);
+            testUser.setPassword(hash);
+            User updatedInfo = User.builder()
+                    .name("updatedUser")
+                    .password("password")
+                    .build();
+
+            when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+            when(passwordEncoder.matches("password", hash)).thenReturn(true);
+            when(userRepository.saveAndFlush(testUser)).thenReturn(testUser);
+            when(userRepository.findVersionByUserId(userId)).thenReturn(Optional.of(new UserVersion(1L, 0L, 0L, 0L)));
+
+            // Act
+            User result = userService.updateUser(userId, updatedInfo, null).body();
+
+            // Assert
+            assertThat(result.getPassword()).isEqualTo(hash);
+            verify(passwordEncoder, never()).encode(anyString());
+            verify(eventPublisher, never()).publishEvent(any(UserCredentialsChangedEvent.class));
+        }
+
+        @Test
+        @DisplayName("Новый пароль кодируется и отзывает токены, выданные на email пользователя")
+        void updateUser_NewPassword_RevokesTokens() {
+            // Arrange
+            Long userId = testUser.getUserId();
+            String hash = "$2a$10$" + "a".repeat(53);
+            testUser.setPassword(hash);
+            User updatedInfo = User.builder()
+                    .password("new-password")
+                    .build();
+
+            when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+            when(passwordEncoder.matches("new-password", hash)).thenReturn(false);
+            when(passwordEncoder.encode("new-password")).thenReturn("encoded");
+            when(userRepository.saveAndFlush(testUser)).thenReturn(testUser);
+            when(userRepository.findVersionByUserId(userId)).thenReturn(Optional.of(new UserVersion(1L, 0L, 0L, 0L)));
+
+            // Act
+            User result = userService.updateUser(userId, updatedInfo, null).body();
+
+            // Assert
+            assertThat(result.getPassword()).isEqualTo("encoded");
+            verify(eventPublisher, times(1)).publishEvent(new UserCredentialsChangedEvent(testUser.getEmail()));
+        }
+
         @Test
         @DisplayName("Неудачное обновление пользователя - пользователь не найден")
         void updateUser_UserNotFound() {
@@ -135,11 +241,53 @@ class UserServiceImplTest {
             when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
             // Act & Assert
-            assertThatThrownBy(() -> userService.updateUser(userId, updatedInfo))
+            assertThatThrownBy(() -> userService.updateUser(userId, updatedInfo, null))
                     .isInstanceOf(ResourceNotFoundException.class);
 
             verify(userRepository, times(1)).findById(userId);
-            verify(userRepository, never()).save(any(User.class));
+            verify(userRepository, never()).saveAndFlush(any(User.class));
+        }
+
+        @Test
+        @DisplayName("Неудачное обновление пользователя - версия из If-Match устарела")
+        void updateUser_VersionMismatch() {
+            // Arrange
+            Long userId = testUser.getUserId();
+            User updatedInfo = User.builder()
+                    .name("updatedUser")
+                    .email("updated@example.com")
+                    .build();
+
+            when(userRepository.findVersionByUserId(userId)).thenReturn(Optional.of(new UserVersion(2L, 0L, 0L, 0L)));
+
+            // Act & Assert
+            assertThatThrownBy(() -> userService.updateUser(userId, updatedInfo, new UserVersion(1L, 0L, 0L, 0L)))
+                    .isInstanceOf(PreconditionFailedException.class);
+
+            verify(userRepository, never()).findById(userId);
+            verifyNoInteractions(eventPublisher);
+        }
+
+        @Test
+        @DisplayName("Неудачное обновление пользователя - версия изменилась между проверкой If-Match и загрузкой")
+        void updateUser_VersionChangedBeforeLoad() {
+            // Arrange
+            Long userId = testUser.getUserId();
+            testUser.setVersion(2L);
+            User updatedInfo = User.builder()
+                    .name("updatedUser")
+                    .build();
+
+            when(userRepository.findVersionByUserId(userId)).thenReturn(Optional.of(new UserVersion(1L, 0L, 0L, 0L)));
+            when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+
+            // Act & Assert
+            assertThatThrownBy(() -> userService.updateUser(userId, updatedInfo, new UserVersion(1L, 0L, 0L, 0L)))
+                    .isInstanceOf(PreconditionFailedException.class);
+
+            verify(userRepository, never()).saveAndFlush(any(User.class));
+            verifyNoInteractions(eventPublisher);
+            assertThat(testUser.getName()).isEqualTo("testuser");
         }
     }
 
@@ -152,13 +300,13 @@ class UserServiceImplTest {
         void getUserById_Success() {
             // Arrange
             Long userId = testUser.getUserId();
-            when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+            when(userRepository.findUserDetailsByUserId(userId)).thenReturn(Optional.of(testUser));
 
             // Act
             User foundUser = userService.getUserById(userId);
 
             // Assert
-            verify(userRepository, times(1)).findById(userId);
+            verify(userRepository, times(1)).findUserDetailsByUserId(userId);
             assertThat(foundUser).isNotNull();
             assertThat(foundUser.getUserId()).isEqualTo(userId);
             assertThat(foundUser.getUsername()).isEqualTo(testUser.getUsername());
@@ -170,7 +318,7 @@ class UserServiceImplTest {
         void getUserById_UserNotFound() {
             // Arrange
            Long userId = 1L;
-            when(userRepository.findById(userId)).thenReturn(Optional.empty());
+            when(userRepository.findUserDetailsByUserId(userId)).thenReturn(Optional.empty());
 
             // Act & Assert
             assertThatThrownBy(() -> userService.getUserById(userId))
@@ -183,16 +331,49 @@ class UserServiceImplTest {
     class DeleteUserTests {
 
         @Test
-        @DisplayName("Успешное удаление пользователя")
+        @DisplayName("Успешное удаление пользователя с отзывом его токенов")
         void deleteUser_Success() {
             // Arrange
             Long userId = testUser.getUserId();
+            when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
 
             // Act
             userService.deleteUser(userId);
 
             // Assert
-            verify(userRepository, times(1)).deleteById(userId);
+            verify(userRepository, times(1)).delete(testUser);
+            verify(eventPublisher, times(1)).publishEvent(new UserCredentialsChangedEvent(testUser.getEmail()));
+            verify(eventPublisher, times(1)).publishEvent(new UserChangedEvent(userId));
+        }
+
+        @Test
+        @DisplayName("Удаление несуществующего пользователя ничего не отзывает")
+        void deleteUser_NotFound() {
+            // Arrange
+            when(userRepository.findById(99L)).thenReturn(Optional.empty());
+
+            // Act
+            userService.deleteUser(99L);
+
+            // Assert
+            verify(userRepository, never()).delete(any(User.class));
+            verify(eventPublisher, never()).publishEvent(any(UserCredentialsChangedEvent.class));
+        }
+
+        @Test
+        @DisplayName("Удаление пользователя снимает его заказы со статистики")
+        void deleteUser_RemovesOrdersFromStatistics() {
+            // Arrange
+            Long userId = testUser.getUserId();
+            when(orderRepository.lockAmountsByUserId(userId)).thenReturn(List.of(
+                    new OrderAmount(10L, userId, OrderStatus.PROCESSING, new BigDecimal("5.00"))));
+
+            // Act
+            userService.deleteUser(userId);
+
+            // Assert
+            verify(eventPublisher, times(1)).publishEvent(OrderAggregatesChangedEvent.of(
+                    new OrderAggregate(userId, OrderStatus.PROCESSING, -1L, new BigDecimal("-5.00"))));
         }
 
         @Nested
@@ -238,4 +419,51 @@ class UserServiceImplTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Тесты для метода streamAllUsers")
+    class StreamAllUsersTests {
+
+        @Test
+        @DisplayName("Пользователи передаются по одному и отсоединяются от контекста")
+        void streamAllUsers_DetachesEachUser() {
+            // Arrange
+            User user1 = testUser;
+            User user2 = createTestUser();
+            user2.setUserId(2L);
+            when(userRepository.streamAll()).thenReturn(Stream.of(user1, user2));
+            List<User> received = new ArrayList<>();
+
+            // Act
+            userService.streamAllUsers(received::add);
+
+            // Assert
+            assertThat(received).containsExactly(user1, user2);
+            verify(entityManager, times(1)).detach(user1);
+            verify(entityManager, times(1)).detach(user2);
+            verify(userRepository, never()).findAll();
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты для метода getUsersPage")
+    class GetUsersPageTests {
+
+        @Test
+        @DisplayName("Ключ следующей страницы равен id последнего пользователя на странице")
+        void getUsersPage_HasNext() {
+            // Arrange
+            User user2 = createTestUser();
+            user2.setUserId(2L);
+            when(userRepository.findByUserIdGreaterThanOrderByUserIdAsc(0L, Limit.of(2)))
+                    .thenReturn(List.of(testUser, user2));
+
+            // Act
+            KeysetPage<User> page = userService.getUsersPage(null, 1);
+
+            // Assert
+            assertThat(page.content()).containsExactly(testUser);
+            assertThat(page.nextKey()).isEqualTo(1L);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ru.javacode.springmvcjsonview.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.javacode.springmvcjsonview.config.BackgroundThreads;
+import ru.javacode.springmvcjsonview.dto.OrderAggregate;
+import ru.javacode.springmvcjsonview.dto.OrderStats;
+import ru.javacode.springmvcjsonview.event.OrderAggregatesChangedEvent;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatisticsTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderStatistics orderStatistics;
+
+    @BeforeEach
+    void setUp() {
+        orderStatistics = new OrderStatistics(orderRepository, new BackgroundThreads(false));
+        when(orderRepository.sumByOwnerAndStatus()).thenReturn(List.of(
+                new OrderAggregate(1L, OrderStatus.PROCESSING, 2L, new BigDecimal("30.50")),
+                new OrderAggregate(1L, OrderStatus.DELIVERY, 1L, new BigDecimal("10.00")),
+                new OrderAggregate(2L, OrderStatus.PROCESSING, 1L, new BigDecimal("0.25"))));
+        orderStatistics.seed();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderStatistics.shutdown();
+    }
+
+    @Test
+    @DisplayName("Итоги собираются одним агрегирующим запросом по статусам и владельцам")
+    void seedFromAggregateQuery() {
+        // Act
+        OrderStats stats = orderStatistics.snapshot(null);
+
+        // Assert
+        assertThat(stats.byStatus()).containsEntry(OrderStatus.PROCESSING,
+                new OrderStats.Totals(3, new BigDecimal("30.75")));
+        assertThat(stats.byStatus()).containsEntry(OrderStatus.DELIVERY,
+                new OrderStats.Totals(1, new BigDecimal("10.00")));
+        assertThat(stats.byStatus()).containsEntry(OrderStatus.CANCELLED,
+                new OrderStats.Totals(0, new BigDecimal("0.00")));
+        assertThat(stats.byUser()).containsEntry(1L, new OrderStats.Totals(3, new BigDecimal("40.50")));
+        assertThat(stats.byUser()).containsEntry(2L, new OrderStats.Totals(1, new BigDecimal("0.25")));
+    }
+
+    @Test
+    @DisplayName("Приращения меняют итоги без запросов к базе")
+    void appliesDeltasWithoutQueries() {
+        // Act
+        orderStatistics.onAggregatesChanged(OrderAggregatesChangedEvent.of(
+                OrderAggregate.removed(2L, OrderStatus.PROCESSING, new BigDecimal("0.25")),
+                OrderAggregate.added(2L, OrderStatus.CANCELLED, new BigDecimal("0.25")),
+                OrderAggregate.added(3L, OrderStatus.PROCESSING, new BigDecimal("1.005"))));
+
+        // Assert
+        OrderStats stats = orderStatistics.snapshot(null);
+        assertThat(stats.byStatus()).containsEntry(OrderStatus.PROCESSING,
+                new OrderStats.Totals(3, new BigDecimal("31.51")));
+        assertThat(stats.byStatus()).containsEntry(OrderStatus.CANCELLED,
+                new OrderStats.Totals(1, new BigDecimal("0.25")));
+        assertThat(stats.byUser()).containsEntry(2L, new OrderStats.Totals(1, new BigDecimal("0.25")));
+        assertThat(stats.byUser()).containsEntry(3L, new OrderStats.Totals(1, new BigDecimal("1.01")));
+        verify(orderRepository, times(1)).sumByOwnerAndStatus();
+    }
+
+    @Test
+    @DisplayName("Владелец без заказов не попадает в итоги, а фильтр по владельцу оставляет только его")
+    void filtersEmptyAndOtherOwners() {
+        // Act
+        orderStatistics.onAggregatesChanged(OrderAggregatesChangedEvent.of(
+                OrderAggregate.removed(2L, OrderStatus.PROCESSING, new BigDecimal("0.25"))));
+
+        // Assert
+        assertThat(orderStatistics.snapshot(null).byUser()).containsOnlyKeys(1L);
+        assertThat(orderStatistics.snapshot(1L).byUser()).containsOnlyKeys(1L);
+        assertThat(orderStatistics.snapshot(2L).byUser()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Событие пересборки заново читает итоги из базы")
+    void resyncReseeds() {
+        // Arrange
+        when(orderRepository.sumByOwnerAndStatus()).thenReturn(List.of(
+                new OrderAggregate(1L, OrderStatus.CANCELLED, 5L, new BigDecimal("50.00"))));
+
+        // Act
+        orderStatistics.onAggregatesChanged(OrderAggregatesChangedEvent.resyncRequired());
+
+        // Assert
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            OrderStats stats = orderStatistics.snapshot(null);
+            assertThat(stats.byStatus().get(OrderStatus.PROCESSING).count()).isZero();
+            assertThat(stats.byUser()).containsOnlyKeys(1L);
+            assertThat(stats.byUser().get(1L)).isEqualTo(new OrderStats.Totals(5, new BigDecimal("50.00")));
+        });
+    }
+
+    @Test
+    @DisplayName("Пересборка ждёт применения приращений транзакции, начатой до неё, и не учитывает их дважды")
+    void resyncWaitsForPublishedDeltas() {
+        // Arrange: транзакция опубликовала приращение, но ещё не завершилась
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            orderStatistics.onAggregatesChanged(OrderAggregatesChangedEvent.of(
+                    OrderAggregate.added(2L, OrderStatus.DELIVERY, new BigDecimal("5.00"))));
+            // после коммита база уже содержит этот заказ
+            when(orderRepository.sumByOwnerAndStatus()).thenReturn(List.of(
+                    new OrderAggregate(1L, OrderStatus.PROCESSING, 2L, new BigDecimal("30.50")),
+                    new OrderAggregate(1L, OrderStatus.DELIVERY, 1L, new BigDecimal("10.00")),
+                    new OrderAggregate(2L, OrderStatus.PROCESSING, 1L, new BigDecimal("0.25")),
+                    new OrderAggregate(2L, OrderStatus.DELIVERY, 1L, new BigDecimal("5.00"))));
+
+            // Act: пересборку запрашивает другая транзакция
+            CompletableFuture.runAsync(() -> orderStatistics.onAggregatesChanged(
+                    OrderAggregatesChangedEvent.resyncRequired())).join();
+
+            // Assert: до завершения транзакции снимок из базы не читается
+            verify(orderRepository, after(200).times(1)).sumByOwnerAndStatus();
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(orderRepository, timeout(5000).times(2)).sumByOwnerAndStatus();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(orderStatistics.snapshot(2L).byUser())
+                .containsEntry(2L, new OrderStats.Totals(2, new BigDecimal("5.25"))));
+    }
+
+    @Test
+    @DisplayName("Приращения откатившейся транзакции не применяются")
+    void ignoresRolledBackDeltas() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            orderStatistics.onAggregatesChanged(OrderAggregatesChangedEvent.of(
+                    OrderAggregate.added(2L, OrderStatus.DELIVERY, new BigDecimal("5.00"))));
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertThat(orderStatistics.snapshot(2L).byUser())
+                .containsEntry(2L, new OrderStats.Totals(1, new BigDecimal("0.25")));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.javacode.springmvcjsonview.view;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SparseFieldsTest {
+
+    @Test
+    @DisplayName("Порядок и повторы не влияют на нормализованный набор полей")
+    void normalizesFieldSet() {
+        // Act
+        SparseFields fields = SparseFields.parse(" user.name, orderId ,amount,user.email,orderId");
+
+        // Assert
+        assertThat(fields).hasToString("amount,orderId,user(email,name)");
+        assertThat(fields).isEqualTo(SparseFields.parse("orderId,amount,user.email,user.name"));
+        assertThat(fields.names()).containsExactly("amount", "orderId", "user");
+        assertThat(fields.nested("user").names()).containsExactly("email", "name");
+        assertThat(fields.nested("amount")).isNull();
+    }
+
+    @Test
+    @DisplayName("Свойство, запрошенное целиком, перекрывает его подполя")
+    void wholePropertyWins() {
+        assertThat(SparseFields.parse("user.name,user")).hasToString("user");
+    }
+
+    @Test
+    @DisplayName("Пустой параметр означает полный view, некорректные имена отклоняются")
+    void parseEdgeCases() {
+        assertThat(SparseFields.parse(null)).isNull();
+        assertThat(SparseFields.parse(" ")).isNull();
+        assertThatThrownBy(() -> SparseFields.parse("orderId,,amount")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SparseFields.parse("user.")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SparseFields.parse("user-name")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SparseFields.parse("a,".repeat(65))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Устаревший findFilter отдаёт тот же фильтр, что и findPropertyFilter")
+    @SuppressWarnings("deprecation")
+    void findFilterMatchesPropertyFilter() {
+        // Arrange
+        SparseFields fields = SparseFields.parse("orderId");
+
+        // Act & Assert
+        assertThat(fields.findFilter(SparseFields.FILTER_ID))
+                .isSameAs(fields.findPropertyFilter(SparseFields.FILTER_ID, null));
+        assertThat(fields.findFilter("other")).isNull();
+    }
+}
@@ -0,0 +1,98 @@
+package ru.javacode.springmvcjsonview.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.javacode.springmvcjsonview.model.Order;
+import ru.javacode.springmvcjsonview.model.OrderStatus;
+import ru.javacode.springmvcjsonview.model.User;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ViewCompilerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ViewCompiler viewCompiler = new ViewCompiler(objectMapper, Views.class, Order.class, User.class);
+
+    @Test
+    @DisplayName("Наборы свойств вычисляются для каждой пары (тип, view)")
+    void propertySets() {
+        assertThat(viewCompiler.propertiesOf(Order.class, Views.OrderSummary.class))
+                .containsExactlyInAnyOrder("orderId", "amount", "orderStatus");
+        assertThat(viewCompiler.propertiesOf(Order.class, Views.OrderDetails.class))
+                .containsExactlyInAnyOrder("orderId", "amount", "orderStatus", "user");
+        assertThat(viewCompiler.propertiesOf(User.class, Views.UserSummary.class))
+                .containsExactlyInAnyOrder("userId", "name", "email");
+        assertThat(viewCompiler.propertiesOf(User.class, Views.UserDetails.class))
+                .containsExactlyInAnyOrder("userId", "name", "email", "orders");
+        assertThat(viewCompiler.propertiesOf(User.class, Views.OrderSummary.class)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Writer для списка создаётся при старте и переиспользуется")
+    void listWriterIsPrecompiled() throws Exception {
+        var listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Order.class);
+        var writer = viewCompiler.writerFor(listType, Views.OrderSummary.class);
+
+        assertThat(viewCompiler.writerFor(objectMapper.getTypeFactory()
+                .constructParametricType(List.class, Order.class), Views.OrderSummary.class)).isSameAs(writer);
+
+        Order order = Order.builder()
+                .orderId(1L)
+                .amount(new BigDecimal("99.99"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .user(User.builder().userId(2L).name("testuser").build())
+                .build();
+        assertThat(writer.writeValueAsString(List.of(order)))
+                .isEqualTo("[{\"orderId\":1,\"amount\":99.99,\"orderStatus\":\"PROCESSING\"}]");
+    }
+
+    @Test
+    @DisplayName("Writer для ?fields= оставляет запрошенные поля, в том числе во вложенных коллекциях, и кэшируется")
+    void sparseWriterFiltersNestedProperties() throws Exception {
+        // Arrange
+        Order order = Order.builder()
+                .orderId(1L)
+                .amount(new BigDecimal("99.99"))
+                .orderStatus(OrderStatus.PROCESSING)
+                .build();
+        User user = User.builder()
+                .userId(2L)
+                .name("testuser")
+                .email("testuser@example.com")
+                .orders(List.of(order))
+                .build();
+        SparseFields fields = SparseFields.parse("orders.amount,userId");
+
+        // Act
+        var writer = viewCompiler.writerFor(User.class, Views.UserDetails.class, fields);
+
+        // Assert
+        assertThat(writer.writeValueAsString(user)).isEqualTo("{\"userId\":2,\"orders\":[{\"amount\":99.99}]}");
+        assertThat(viewCompiler.writerFor(User.class, Views.UserDetails.class, SparseFields.parse("userId,orders.amount")))
+                .isSameAs(writer);
+        assertThat(viewCompiler.writerFor(User.class, Views.UserDetails.class).writeValueAsString(user))
+                .contains("\"email\"", "\"orderStatus\"");
+    }
+
+    @Test
+    @DisplayName("Поля, скрытые view или неизвестные, отклоняются")
+    void sparseWriterRejectsHiddenFields() {
+        assertThatThrownBy(() -> viewCompiler.writerFor(User.class, Views.UserSummary.class,
+                SparseFields.parse("orders")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("orders");
+        assertThatThrownBy(() -> viewCompiler.writerFor(User.class, Views.UserDetails.class,
+                SparseFields.parse("password")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> viewCompiler.writerFor(Order.class, Views.OrderSummary.class,
+                SparseFields.parse("amount.value")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("amount");
+    }
+}
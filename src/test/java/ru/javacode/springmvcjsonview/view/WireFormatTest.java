@@ -0,0 +1,35 @@
+package ru.javacode.springmvcjsonview.view;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WireFormatTest {
+
+    @Test
+    @DisplayName("Без Accept и для */* выбирается JSON")
+    void negotiate_DefaultsToJson() {
+        assertThat(WireFormat.negotiate(null)).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.negotiate("*/*")).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.negotiate("text/html")).isEqualTo(WireFormat.JSON);
+    }
+
+    @Test
+    @DisplayName("Бинарный формат выбирается по Accept с учётом q-факторов")
+    void negotiate_RespectsQuality() {
+        assertThat(WireFormat.negotiate("application/cbor")).isEqualTo(WireFormat.CBOR);
+        assertThat(WireFormat.negotiate("application/json;q=0.5, application/x-jackson-smile"))
+                .isEqualTo(WireFormat.SMILE);
+        assertThat(WireFormat.negotiate("application/cbor;q=0.1, application/json")).isEqualTo(WireFormat.JSON);
+    }
+
+    @Test
+    @DisplayName("Суффикс формата добавляется к тегу версии и снимается обратно")
+    void eTag_RoundTrip() {
+        assertThat(WireFormat.JSON.eTag("3.5")).isEqualTo("3.5");
+        assertThat(WireFormat.CBOR.eTag("3.5")).isEqualTo("3.5-cbor");
+        assertThat(WireFormat.versionTag("3.5-smile")).isEqualTo("3.5");
+        assertThat(WireFormat.versionTag("3.5")).isEqualTo("3.5");
+    }
+}